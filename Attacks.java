@@ -0,0 +1,74 @@
+// Precomputed attack sets, indexed by square in the same row * 8 + col layout as Position.
+final class Attacks
+{
+    static final int NORTH = 0, SOUTH = 1, EAST = 2, WEST = 3;
+    static final int NORTH_EAST = 4, NORTH_WEST = 5, SOUTH_EAST = 6, SOUTH_WEST = 7;
+
+    private static final int[][] DIRECTIONS = {{-1, 0}, {1, 0}, {0, 1}, {0, -1}, {-1, 1}, {-1, -1}, {1, 1}, {1, -1}};
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    static final long[][] PAWN = new long[2][64];
+    static final long[][] RAYS = new long[8][64];
+
+    static
+    {
+        int[][] knightSteps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int sq = 0; sq < 64; sq++)
+        {
+            int r = sq >> 3, c = sq & 7;
+            for (int[] step : knightSteps)
+            {
+                KNIGHT[sq] |= bit(r + step[0], c + step[1]);
+            }
+            for (int dir = 0; dir < 8; dir++)
+            {
+                KING[sq] |= bit(r + DIRECTIONS[dir][0], c + DIRECTIONS[dir][1]);
+                for (int i = 1; i < 8; i++)
+                {
+                    RAYS[dir][sq] |= bit(r + DIRECTIONS[dir][0] * i, c + DIRECTIONS[dir][1] * i);
+                }
+            }
+            PAWN[Position.WHITE][sq] = bit(r - 1, c - 1) | bit(r - 1, c + 1);
+            PAWN[Position.BLACK][sq] = bit(r + 1, c - 1) | bit(r + 1, c + 1);
+        }
+    }
+
+    private Attacks()
+    {
+    }
+
+    private static long bit(int r, int c)
+    {
+        return r >= 0 && r < 8 && c >= 0 && c < 8 ? 1L << (r * 8 + c) : 0;
+    }
+
+    // Squares seen along one ray up to and including the first occupied square.
+    static long ray(int dir, int sq, long occupied)
+    {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers == 0) return ray;
+        return ray & ~RAYS[dir][firstBlocker(dir, blockers)];
+    }
+
+    // The occupied square nearest the origin of a ray, or -1 when the ray is empty.
+    static int firstBlocker(int dir, long blockers)
+    {
+        if (blockers == 0) return -1;
+        return dir == SOUTH || dir == EAST || dir == SOUTH_EAST || dir == SOUTH_WEST
+            ? Long.numberOfTrailingZeros(blockers)
+            : 63 - Long.numberOfLeadingZeros(blockers);
+    }
+
+    static long rook(int sq, long occupied)
+    {
+        return ray(NORTH, sq, occupied) | ray(SOUTH, sq, occupied) | ray(EAST, sq, occupied) | ray(WEST, sq, occupied);
+    }
+
+    static long bishop(int sq, long occupied)
+    {
+        return ray(NORTH_EAST, sq, occupied) | ray(NORTH_WEST, sq, occupied)
+            | ray(SOUTH_EAST, sq, occupied) | ray(SOUTH_WEST, sq, occupied);
+    }
+}
@@ -0,0 +1,154 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Headless engine benchmarks.
+//   java Bench smp [depth] [maxThreads]   time to depth and speedup for 1, 2, 4 ... threads
+//   java Bench alloc [depth]              bytes allocated by the search per position
+//   java Bench eval                       evaluations per second, full scan against running totals
+class Bench
+{
+    static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    private static void smp(int depth, int maxThreads)
+    {
+        TranspositionTable table = new TranspositionTable(64);
+        // Throwaway passes until one is no faster than the last, so class loading and JIT
+        // work are not charged to the first row and read as a speedup of the others.
+        ParallelSearch warmup = new ParallelSearch(table, 1);
+        long previous = Long.MAX_VALUE;
+        for (int pass = 0; pass < 10; pass++)
+        {
+            table.clear();
+            long start = System.nanoTime();
+            for (String fen : POSITIONS)
+            {
+                warmup.bestMove(new Position(fen), SearchLimits.depth(depth));
+            }
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= previous) break;
+            previous = elapsed;
+        }
+        warmup.shutdown();
+
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2)
+        {
+            // Every row starts from an empty table, so no row reuses an earlier row's work.
+            table.clear();
+            ParallelSearch search = new ParallelSearch(table, threads);
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (String fen : POSITIONS)
+            {
+                search.bestMove(new Position(fen), SearchLimits.depth(depth));
+                nodes += search.stats().nodes;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            search.shutdown();
+            if (threads == 1) baseline = seconds;
+            System.out.printf("threads %2d  time %7.2f s  nodes %10d  %9.0f nps  speedup %.2fx%n",
+                threads, seconds, nodes, nodes / seconds, baseline / seconds);
+        }
+    }
+
+    private static void allocation(int depth)
+    {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        TranspositionTable table = new TranspositionTable(16);
+        Search search = new Search(table, new AtomicBoolean(), 0);
+        // One throwaway pass so class loading, table generation and JIT work are not counted.
+        for (String fen : POSITIONS)
+        {
+            search.bestMove(new Position(fen), SearchLimits.depth(depth));
+        }
+
+        long totalBytes = 0, totalNodes = 0;
+        for (String fen : POSITIONS)
+        {
+            Position root = new Position(fen);
+            table.clear();
+            table.newSearch();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            search.bestMove(root, SearchLimits.depth(depth));
+            long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+            totalBytes += bytes;
+            totalNodes += search.stats.nodes;
+            System.out.printf("%-80s %9d nodes %8d bytes%n", fen, search.stats.nodes, bytes);
+        }
+        System.out.printf("total %d nodes, %d bytes allocated (%.3f bytes per node)%n",
+            totalNodes, totalBytes, (double) totalBytes / Math.max(1, totalNodes));
+    }
+
+    private static void collect(Position pos, int depth, List<Position> out)
+    {
+        if (depth == 0)
+        {
+            out.add(new Position(pos));
+            return;
+        }
+        for (int move : pos.legalMoves())
+        {
+            pos.makeMove(move);
+            collect(pos, depth - 1, out);
+            pos.unmakeMove(move);
+        }
+    }
+
+    private static void evaluation()
+    {
+        List<Position> sample = new ArrayList<>();
+        for (String fen : POSITIONS)
+        {
+            collect(new Position(fen), 2, sample);
+        }
+        PawnTable pawns = new PawnTable(1);
+        int mismatches = 0;
+        for (Position pos : sample)
+        {
+            if (Evaluation.evaluate(pos, pawns) != Evaluation.evaluateFull(pos)) mismatches++;
+        }
+
+        for (int round = 0; round < 3; round++)
+        {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++)
+            {
+                for (Position pos : sample) sink += Evaluation.evaluateFull(pos);
+            }
+            double full = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < 50; i++)
+            {
+                for (Position pos : sample) sink += Evaluation.evaluate(pos, pawns);
+            }
+            double incremental = System.nanoTime() - start;
+            long evals = 50L * sample.size();
+            System.out.printf("round %d  full scan %11.0f evals/s  running totals %11.0f evals/s  (%d)%n",
+                round + 1, evals * 1e9 / full, evals * 1e9 / incremental, sink & 1);
+        }
+        System.out.printf("%d positions, %d mismatches between the two, pawn table hit rate %.3f%n",
+            sample.size(), mismatches, pawns.hitRate());
+    }
+
+    public static void main(String[] args)
+    {
+        String mode = args.length > 0 ? args[0] : "";
+        switch (mode)
+        {
+            case "smp" -> smp(args.length > 1 ? Integer.parseInt(args[1]) : 5,
+                args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+            case "alloc" -> allocation(args.length > 1 ? Integer.parseInt(args[1]) : 5);
+            case "eval" -> evaluation();
+            default -> System.out.println("usage: java Bench smp [depth] [maxThreads] | alloc [depth] | eval");
+        }
+    }
+}
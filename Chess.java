@@ -2,20 +2,31 @@
 import javax.swing.*;
 import java.awt.*;
 import java.util.*;
-import java.util.List;
 
 public class Chess extends JFrame {
     private JButton[][] boardButtons = new JButton[8][8];
-    private Piece[][] board = new Piece[8][8];
+    private Position position = new Position(System.getProperty("chess.fen", Position.START_FEN));
     private boolean playerTurn = true;
     private int selectedRow = -1, selectedCol = -1;
-    private boolean whiteKingMoved = false;
-    private boolean blackKingMoved = false;
-    private boolean[] whiteRookMoved = new boolean[2]; 
-    private boolean[] blackRookMoved = new boolean[2]; 
-    private int enPassantTargetCol = -1;
-    private int enPassantTargetRow = -1;
     private boolean gameOver = false;
+    private int[] legalMoves;
+    private final long[] legalTargets = new long[64];
+
+    private static final String[] GLYPHS = {
+        "\u2659", "\u2658", "\u2657", "\u2656", "\u2655", "\u2654",
+        "\u265F", "\u265E", "\u265D", "\u265C", "\u265B", "\u265A"
+    };
+
+    private final TranspositionTable table = new TranspositionTable(Integer.getInteger("chess.hashMb", 16));
+    private final ParallelSearch search = new ParallelSearch(table, Integer.getInteger("chess.threads", 1));
+    // Up to this many centipawns of noise on root scores, so games against the computer vary.
+    private static final int VARIETY = 20;
+
+    private final SearchLimits moveLimits = SearchLimits.time(Long.getLong("chess.moveTimeMs", 2000)).withVariety(VARIETY);
+    private final PolyglotBook book = PolyglotBook.fromProperty("chess.book", Integer.getInteger("chess.bookDepth", 16));
+    private final boolean ponderEnabled = Boolean.parseBoolean(System.getProperty("chess.ponder", "true"));
+    // Search on the reply the computer expects, run while the player thinks; null when idle.
+    private volatile PonderWorker ponder;
 
     public Chess() 
     {
@@ -25,59 +36,22 @@ public class Chess extends JFrame {
         setLayout(new GridLayout(8, 8));
         initializeBoard();
         updateBoardUI();
+        getRootPane().registerKeyboardAction(e -> search.stop(),
+            KeyStroke.getKeyStroke("ESCAPE"), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        search.main().listener = s -> {
+            PonderWorker pondering = ponder;
+            if (pondering != null) pondering.enforce();
+        };
         setVisible(true);
-    }
-
-    private class Piece 
-    {
-        String type;
-        boolean isWhite;
-        public Piece(String type, boolean isWhite) 
+        if (position.sideToMove == Position.BLACK && !isGameOver())
         {
-            this.type = type;
-            this.isWhite = isWhite;
-        }
-
-        public String getUnicode() 
-        {
-            return switch (type) 
-            {
-                case "K" -> isWhite ? "\u2654" : "\u265A"; 
-                case "Q" -> isWhite ? "\u2655" : "\u265B"; 
-                case "R" -> isWhite ? "\u2656" : "\u265C"; 
-                case "B" -> isWhite ? "\u2657" : "\u265D"; 
-                case "N" -> isWhite ? "\u2658" : "\u265E"; 
-                case "P" -> isWhite ? "\u2659" : "\u265F"; 
-                default -> "";
-            };
+            playerTurn = false;
+            new ComputerMoveWorker(null).execute();
         }
     }
 
     private void initializeBoard() 
     {
-        board[0][0] = new Piece("R", false);
-        board[0][1] = new Piece("N", false);
-        board[0][2] = new Piece("B", false);
-        board[0][3] = new Piece("Q", false);
-        board[0][4] = new Piece("K", false);
-        board[0][5] = new Piece("B", false);
-        board[0][6] = new Piece("N", false);
-        board[0][7] = new Piece("R", false);
-
-        for (int i = 0; i < 8; i++) 
-        board[1][i] = new Piece("P", false);
-        board[7][0] = new Piece("R", true);
-        board[7][1] = new Piece("N", true);
-        board[7][2] = new Piece("B", true);
-        board[7][3] = new Piece("Q", true);
-        board[7][4] = new Piece("K", true);
-        board[7][5] = new Piece("B", true);
-        board[7][6] = new Piece("N", true);
-        board[7][7] = new Piece("R", true);
-
-        for (int i = 0; i < 8; i++) 
-        board[6][i] = new Piece("P", true);
-
         for (int row = 0; row < 8; row++) 
         {
             for (int col = 0; col < 8; col++) 
@@ -94,6 +68,11 @@ public class Chess extends JFrame {
         }
     }
 
+    private int pieceAt(int row, int col) 
+    {
+        return position.squares[row * 8 + col];
+    }
+
     private void updateBoardUI() 
     {
         for (int row = 0; row < 8; row++) 
@@ -109,15 +88,15 @@ public class Chess extends JFrame {
                 {
                     btn.setBackground(Color.YELLOW);
                 } 
-                else if (selectedRow != -1 && isValidMove(selectedRow, selectedCol, row, col, board[selectedRow][selectedCol].isWhite, true)) 
+                else if (selectedRow != -1 && isValidMove(selectedRow, selectedCol, row, col)) 
                 {
                     btn.setBackground(Color.GREEN); 
                 }
 
-                Piece p = board[row][col];
-                btn.setText(p == null ? "" : p.getUnicode());
+                int p = pieceAt(row, col);
+                btn.setText(p == Position.EMPTY ? "" : GLYPHS[p]);
 
-                if (p != null) 
+                if (p != Position.EMPTY) 
                 {
                     btn.setForeground(Color.BLACK);
                 }
@@ -126,11 +105,9 @@ public class Chess extends JFrame {
         if (gameOver) 
         {
             String status = "";
-            if (isKingInCheckmate(true)) {
-                status = "Computer Win!";
-            } else if (isKingInCheckmate(false)) {
-                status = "You Win!";
-            } else if (isStalemate(playerTurn)) {
+            if (isKingInCheckmate()) {
+                status = position.sideToMove == Position.WHITE ? "Computer Win!" : "You Win!";
+            } else if (isStalemate()) {
                 status = "Draw!";
             } else {
                 status = "Game is Over!"; 
@@ -144,11 +121,11 @@ public class Chess extends JFrame {
         if (gameOver || !playerTurn) 
         return; 
 
-        Piece clicked = board[row][col];
+        int clicked = pieceAt(row, col);
 
         if (selectedRow == -1) 
         {
-            if (clicked != null && clicked.isWhite) 
+            if (clicked != Position.EMPTY && Position.colorOf(clicked) == Position.WHITE) 
             {
                 selectedRow = row;
                 selectedCol = col;
@@ -163,22 +140,26 @@ public class Chess extends JFrame {
                 updateBoardUI();
                 return;
             }
-            boolean isMoveValid = isValidMove(selectedRow, selectedCol, row, col, board[selectedRow][selectedCol].isWhite, true);
+            int move = findLegalMove(selectedRow, selectedCol, row, col);
 
-            if (isMoveValid) 
+            if (move != Move.NONE) 
             {
-                makeMove(selectedRow, selectedCol, row, col);
+                applyMove(move);
 
                 selectedRow = -1;
                 selectedCol = -1;
 
+                PonderWorker pondered = ponder;
+                if (pondered != null) pondered.playerMoved(move);
+
                 if(isGameOver()) {
                     gameOver = true;
+                    search.stop();
                     updateBoardUI(); 
                 } else {
                     playerTurn = false;
                     updateBoardUI(); 
-                    new ComputerMoveWorker().execute();
+                    new ComputerMoveWorker(pondered).execute();
                 }
             } 
             else 
@@ -191,29 +172,101 @@ public class Chess extends JFrame {
     }
     
   
-    private class ComputerMoveWorker extends SwingWorker<int[], Void> {
+    // Searches the position after the predicted reply with no time limit. If the
+    // player makes that move the search is given the normal move time, counted from
+    // when pondering began; any other move stops it.
+    private class PonderWorker extends SwingWorker<Integer, Void> {
+        private final int predicted;
+        private final Position after;
+        private volatile boolean hit, missed;
+
+        PonderWorker(int predicted) {
+            this.predicted = predicted;
+            after = new Position(position);
+            after.makeMove(predicted);
+        }
+
+        @Override
+        protected Integer doInBackground() {
+            return search.bestMove(after, SearchLimits.depth(SearchLimits.MAX_DEPTH).withVariety(VARIETY));
+        }
+
+        void playerMoved(int move) {
+            if (move == predicted) hit = true;
+            else missed = true;
+            enforce();
+        }
+
+        // A stop or time limit sent before the search has reset its state would be lost,
+        // so this is repeated after every completed iteration as well.
+        void enforce() {
+            if (missed) search.stop();
+            else if (hit) search.limitTime(moveLimits.millis);
+        }
+    }
+
+    private class ComputerMoveWorker extends SwingWorker<Integer, Void> {
+        private final PonderWorker pondered;
+        private int predicted = Move.NONE;
+
+        ComputerMoveWorker(PonderWorker pondered) {
+            this.pondered = pondered;
+        }
 
         @Override
-        protected int[] doInBackground() throws Exception {
-          
-            return findBestMove();
+        protected Integer doInBackground() throws Exception {
+            int move;
+            if (pondered != null) {
+                // Either way the pondering search has to finish before the engine is reused.
+                move = pondered.get();
+                ponder = null;
+                if (pondered.hit) {
+                    report("ponder hit, ");
+                    return move;
+                }
+            }
+
+            move = book == null ? Move.NONE : book.probe(position);
+            if (move != Move.NONE) {
+                System.out.println("book move " + Move.name(move));
+                return move;
+            }
+
+            move = search.bestMove(new Position(position), moveLimits);
+            report("");
+            return move;
+        }
+
+        private void report(String prefix) {
+            int[] line = new int[2];
+            if (search.main().principalVariation(line) == 2) predicted = line[1];
+            SearchStats stats = search.stats();
+            System.out.printf("%sdepth %d, %d nodes (%d quiescence, %d threads) in %d ms, %d nps, branching %.1f, %.0f%% first-move cutoffs, %.1f%% tt hits; %s%n",
+                prefix, stats.completedDepth, stats.nodes, stats.quiescenceNodes, stats.threads, stats.millis,
+                stats.nodesPerSecond(), stats.branchingFactor(), stats.firstMoveCutoffRate() * 100, stats.ttHitRate() * 100,
+                table.stats());
         }
 
         @Override
         protected void done() {
          
             try {
-                int[] bestMove = get(); 
+                int bestMove = get(); 
                 
-                if (bestMove != null) {
+                if (bestMove != Move.NONE) {
                   
-                    makeMove(bestMove[0], bestMove[1], bestMove[2], bestMove[3]);
+                    applyMove(bestMove);
+                    System.out.println(position.toFen());
                 }
 
                 if(isGameOver()) {
                     gameOver = true;
                 } else {
                     playerTurn = true; 
+                    if (ponderEnabled && predicted != Move.NONE) {
+                        ponder = new PonderWorker(predicted);
+                        ponder.execute();
+                    }
                 }
                 
                 updateBoardUI(); 
@@ -227,678 +280,68 @@ public class Chess extends JFrame {
         }
     }
     
-   
-    
-    private void makeMove(int fromRow, int fromCol, int toRow, int toCol) {
-        Piece piece = board[fromRow][fromCol];
-        Piece captured = board[toRow][toCol];
-        board[toRow][toCol] = piece;
-        board[fromRow][fromCol] = null;
-        
-        if (piece.type.equals("K")) {
-            if (piece.isWhite) {
-                whiteKingMoved = true;
-                if (Math.abs(fromCol - toCol) == 2) { 
-                    int rookCol = (toCol == 6) ? 7 : 0;
-                    int newRookCol = (toCol == 6) ? 5 : 3;
-                    board[fromRow][newRookCol] = board[fromRow][rookCol];
-                    board[fromRow][rookCol] = null;
-                    whiteRookMoved[rookCol / 7] = true; 
-                }
-            } else {
-                blackKingMoved = true;
-                if (Math.abs(fromCol - toCol) == 2) { 
-                    int rookCol = (toCol == 6) ? 7 : 0;
-                    int newRookCol = (toCol == 6) ? 5 : 3;
-                    board[fromRow][newRookCol] = board[fromRow][rookCol];
-                    board[fromRow][rookCol] = null;
-                    blackRookMoved[rookCol / 7] = true;
-                }
-            }
-        } else if (piece.type.equals("R")) {
-            if (piece.isWhite) {
-                if (fromRow == 7 && fromCol == 0) whiteRookMoved[0] = true;
-                if (fromRow == 7 && fromCol == 7) whiteRookMoved[1] = true;
-            } else {
-                if (fromRow == 0 && fromCol == 0) blackRookMoved[0] = true;
-                if (fromRow == 0 && fromCol == 7) blackRookMoved[1] = true;
-            }
-        } else if (piece.type.equals("P")) {
-            if (Math.abs(fromRow - toRow) == 2) {
-                enPassantTargetRow = (fromRow + toRow) / 2;
-                enPassantTargetCol = fromCol;
-            } else if (toCol == enPassantTargetCol && toRow == enPassantTargetRow && captured == null) {
-                if (piece.isWhite) {
-                    board[toRow + 1][toCol] = null; 
-                } else {
-                    board[toRow - 1][toCol] = null; 
-                }
-            }
-            
-            if ((piece.isWhite && toRow == 0) || (!piece.isWhite && toRow == 7)) {
-                board[toRow][toCol] = new Piece("Q", piece.isWhite); 
-            }
-        }
-        
-        if (!piece.type.equals("P") || Math.abs(fromRow - toRow) != 2) {
-            if (piece.isWhite && !playerTurn) {
-               
-                enPassantTargetRow = -1;
-                enPassantTargetCol = -1;
-            }
-        }
-        
-       
-        if (!playerTurn && piece.type.equals("P") && Math.abs(fromRow - toRow) == 2) {
-         
-        } else if (!playerTurn) {
-            enPassantTargetRow = -1;
-            enPassantTargetCol = -1;
-        } else if (playerTurn && piece.type.equals("P") && Math.abs(fromRow - toRow) == 2) {
-          
-        } else if (playerTurn) {
-             enPassantTargetRow = -1;
-             enPassantTargetCol = -1;
-        }
-
-    }
-    
-    private boolean isGameOver() {
-        return isKingInCheckmate(true) || isKingInCheckmate(false) || isStalemate(true) || isStalemate(false);
-    }
-    
-    private boolean isStalemate(boolean isWhite) {
-        if (isKingInCheck(isWhite)) return false; 
-        
-        return generateAllValidMoves(isWhite).isEmpty();
-    }
-    
-    private boolean isKingInCheckmate(boolean isWhite) {
-        if (!isKingInCheck(isWhite)) return false; 
-        
-        return generateAllValidMoves(isWhite).isEmpty();
-    }
-    
-    private boolean isKingInCheck(boolean isWhite) {
-        int kingR = -1, kingC = -1;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = board[r][c];
-                if (p != null && p.type.equals("K") && p.isWhite == isWhite) {
-                    kingR = r;
-                    kingC = c;
-                    break;
-                }
-            }
-        }
-
-        if (kingR == -1) return false; 
-
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = board[r][c];
-                if (p != null && p.isWhite != isWhite) { 
-                    List<int[]> moves = getPiecePotentialMoves(r, c, !isWhite, false);
-                    for (int[] move : moves) {
-                        if (move[2] == kingR && move[3] == kingC) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+    private void applyMove(int move) 
+    {
+        position.makeMove(move);
+        legalMoves = null;
     }
 
-    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol, boolean isWhite, boolean checkSafety) 
+    private int[] legalMoves() 
     {
-        List<int[]> validMoves = checkSafety ? generateAllValidMoves(isWhite) : getPiecePotentialMoves(fromRow, fromCol, isWhite, true);
-        
-        for (int[] move : validMoves) 
+        if (legalMoves == null) 
         {
-            if (move[0] == fromRow && move[1] == fromCol && move[2] == toRow && move[3] == toCol) 
+            legalMoves = position.legalMoves();
+            Arrays.fill(legalTargets, 0);
+            for (int move : legalMoves) 
             {
-                return true;
+                legalTargets[Move.from(move)] |= 1L << Move.to(move);
             }
         }
-        return false;
+        return legalMoves;
     }
-    
-    private List<int[]> generateAllValidMoves(boolean isWhite) 
-    {
-        List<int[]> moves = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) 
-            {
-                Piece p = board[r][c];
-                if (p != null && p.isWhite == isWhite) 
-                {
-                    List<int[]> potentialMoves = getPiecePotentialMoves(r, c, isWhite, true);
-                    for (int[] move : potentialMoves) {
-                        if (!isMoveIntoCheck(move[0], move[1], move[2], move[3], isWhite)) {
-                            moves.add(move);
-                        }
-                    }
-                }
-            }
-        }
-        return moves;
+
+    private boolean isGameOver() {
+        return isKingInCheckmate() || isStalemate();
     }
-    
-    private boolean isMoveIntoCheck(int fromR, int fromC, int toR, int toC, boolean isWhite) {
-        Piece originalPiece = board[fromR][fromC];
-        Piece capturedPiece = board[toR][toC];
-
-      
-        Piece enPassantVictim = null;
-        int enPassantVictimR = -1;
-        int enPassantVictimC = -1;
-        if (originalPiece != null && originalPiece.type.equals("P") && capturedPiece == null && toR == enPassantTargetRow && toC == enPassantTargetCol) {
-            enPassantVictimR = isWhite ? toR + 1 : toR - 1;
-            enPassantVictimC = toC;
-            enPassantVictim = board[enPassantVictimR][enPassantVictimC];
-            board[enPassantVictimR][enPassantVictimC] = null;
-        }
 
-        board[toR][toC] = originalPiece;
-        board[fromR][fromC] = null;
+    
+    private boolean isStalemate() {
+        if (position.isInCheck(position.sideToMove)) return false; 
         
-        boolean isCheck = isKingInCheck(isWhite);
-
+        return legalMoves().length == 0;
+    }
     
-        board[fromR][fromC] = originalPiece;
-        board[toR][toC] = capturedPiece;
-
-      
-        if (enPassantVictim != null) {
-             board[enPassantVictimR][enPassantVictimC] = enPassantVictim;
-        }
-
-        return isCheck;
+    private boolean isKingInCheckmate() {
+        if (!position.isInCheck(position.sideToMove)) return false; 
+        
+        return legalMoves().length == 0;
     }
 
-    private List<int[]> getPiecePotentialMoves(int r, int c, boolean isWhite, boolean includeSpecialMoves) 
+    private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) 
     {
-        List<int[]> moves = new ArrayList<>();
-        Piece p = board[r][c];
-        if (p == null) 
-        return moves;
-
-        switch (p.type) 
-        {
-            case "P":
-                int direction = isWhite ? -1 : 1;
-                int startRow = isWhite ? 6 : 1;
-
-                if (r + direction >= 0 && r + direction < 8 && board[r + direction][c] == null) 
-                {
-                    moves.add(new int[]{r, c, r + direction, c});
-                
-                    if (r == startRow && board[r + 2 * direction][c] == null) 
-                    {
-                        moves.add(new int[]{r, c, r + 2 * direction, c});
-                    }
-                }
-
-                for (int dc : new int[]{-1, 1}) 
-                {
-                    int nc = c + dc;
-                    int nr = r + direction;
-                    if (nr >= 0 && nr < 8 && nc >= 0 && nc < 8) 
-                    {
-                        Piece target = board[nr][nc];
-                        if (target != null && target.isWhite != isWhite) 
-                        {
-                            moves.add(new int[]{r, c, nr, nc});
-                        }
-                        
-                     
-                        if (includeSpecialMoves && nr == enPassantTargetRow && nc == enPassantTargetCol && board[nr][nc] == null) {
-                            if ((isWhite && r == 3) || (!isWhite && r == 4)) { 
-                                Piece potentialVictim = board[r][nc];
-                                if (potentialVictim != null && potentialVictim.type.equals("P") && potentialVictim.isWhite != isWhite) {
-                                    moves.add(new int[]{r, c, nr, nc}); 
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-
-            case "R":
-            case "B":
-            case "Q":
-                int[][] directions;
-                if (p.type.equals("R")) directions = new int[][]{{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
-                else if (p.type.equals("B")) directions = new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-                else directions = new int[][]{{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-
-                for (int[] dir : directions) 
-                {
-                    for (int i = 1; i < 8; i++) 
-                    {
-                        int nr = r + dir[0] * i;
-                        int nc = c + dir[1] * i;
-                        if (nr >= 0 && nr < 8 && nc >= 0 && nc < 8) 
-                        {
-                            Piece target = board[nr][nc];
-                            if (target == null) {
-                                moves.add(new int[]{r, c, nr, nc});
-                            } 
-                            else 
-                            {
-                                if (target.isWhite != isWhite) 
-                                {
-                                    moves.add(new int[]{r, c, nr, nc}); 
-                                }
-                                break; 
-                            }
-                        } 
-                        else 
-                        {
-                            break; 
-                        }
-                    }
-                }
-                break;
-
-            case "N":
-                int[][] knightMoves = new int[][]{{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
-                for (int[] move : knightMoves) 
-                {
-                    int nr = r + move[0];
-                    int nc = c + move[1];
-                    if (nr >= 0 && nr < 8 && nc >= 0 && nc < 8) 
-                    {
-                        Piece target = board[nr][nc];
-                        if (target == null || target.isWhite != isWhite) 
-                        {
-                            moves.add(new int[]{r, c, nr, nc});
-                        }
-                    }
-                }
-                break;
-            case "K":
-                for (int dr = -1; dr <= 1; dr++) 
-                {
-                    for (int dc = -1; dc <= 1; dc++) 
-                    {
-                        if (dr == 0 && dc == 0) continue;
-                        int nr = r + dr;
-                        int nc = c + dc;
-                        if (nr >= 0 && nr < 8 && nc >= 0 && nc < 8) 
-                        {
-                            Piece target = board[nr][nc];
-                            if (target == null || target.isWhite != isWhite) 
-                            {
-                                moves.add(new int[]{r, c, nr, nc});
-                            }
-                        }
-                    }
-                }
-                
-                if (includeSpecialMoves && !isKingInCheck(isWhite)) {
-                    boolean kingMoved = isWhite ? whiteKingMoved : blackKingMoved;
-                    boolean[] rookMoved = isWhite ? whiteRookMoved : blackRookMoved;
-                    int row = isWhite ? 7 : 0;
-                    
-                    if (!kingMoved) {
-                      
-                        if (!rookMoved[1] && board[row][5] == null && board[row][6] == null && board[row][7] != null && board[row][7].type.equals("R")) { 
-                            if (!isMoveIntoCheck(r, c, row, 5, isWhite) && !isMoveIntoCheck(r, c, row, 6, isWhite)) {
-                                moves.add(new int[]{r, c, row, 6}); 
-                            }
-                        }
-                       
-                        if (!rookMoved[0] && board[row][1] == null && board[row][2] == null && board[row][3] == null && board[row][0] != null && board[row][0].type.equals("R")) { 
-                            if (!isMoveIntoCheck(r, c, row, 3, isWhite) && !isMoveIntoCheck(r, c, row, 2, isWhite)) {
-                                moves.add(new int[]{r, c, row, 2}); 
-                            }
-                        }
-                    }
-                }
-                break;
-        }
-        return moves;
+        legalMoves();
+        return (legalTargets[fromRow * 8 + fromCol] & (1L << (toRow * 8 + toCol))) != 0;
     }
 
-    private int[] findBestMove() 
+    private int findLegalMove(int fromRow, int fromCol, int toRow, int toCol) 
     {
-        int bestValue = Integer.MIN_VALUE;
-        int[] move = null;
-        List<int[]> allMoves = generateAllValidMoves(false); 
-        
-        Collections.shuffle(allMoves); 
-        
-        for (int[] m : allMoves) 
-        {
-            Piece originalPiece = board[m[0]][m[1]];
-            Piece capturedPiece = board[m[2]][m[3]];
-            int originalEnPassantTargetCol = enPassantTargetCol;
-            int originalEnPassantTargetRow = enPassantTargetRow;
-            
-          
-            Piece enPassantVictim = null;
-            int enPassantVictimR = -1;
-            int enPassantVictimC = -1;
-            boolean isEnPassantMove = false;
-            
-            if (originalPiece != null && originalPiece.type.equals("P") && capturedPiece == null && m[3] == originalEnPassantTargetCol && m[2] == originalEnPassantTargetRow) {
-                enPassantVictimR = m[2] - 1; 
-                enPassantVictimC = m[3];
-                enPassantVictim = board[enPassantVictimR][enPassantVictimC];
-                board[enPassantVictimR][enPassantVictimC] = null;
-                isEnPassantMove = true;
-            }
-
-          
-            board[m[2]][m[3]] = originalPiece;
-            board[m[0]][m[1]] = null;
-            
-          
-            boolean isCastling = originalPiece.type.equals("K") && Math.abs(m[1] - m[3]) == 2;
-            Piece originalRook = null;
-            int originalRookC = -1, newRookC = -1;
-            if (isCastling) {
-                if (m[3] == 6) {
-                    originalRookC = 7; newRookC = 5;
-                } else { 
-                    originalRookC = 0; newRookC = 3;
-                }
-                originalRook = board[m[0]][originalRookC];
-                board[m[0]][newRookC] = originalRook;
-                board[m[0]][originalRookC] = null;
-            }
-
-         
-            if (originalPiece.type.equals("P") && Math.abs(m[0] - m[2]) == 2) {
-                enPassantTargetRow = (m[0] + m[2]) / 2;
-                enPassantTargetCol = m[1];
-            } else {
-                enPassantTargetCol = -1;
-                enPassantTargetRow = -1;
-            }
-
-        
-            int moveValue = alphaBeta(1, Integer.MIN_VALUE, Integer.MAX_VALUE, false, 3); 
-
-          
-            if (isCastling) {
-                board[m[0]][originalRookC] = originalRook;
-                board[m[0]][newRookC] = null;
-            }
-            
-           
-            board[m[0]][m[1]] = originalPiece;
-            board[m[2]][m[3]] = capturedPiece;
-            
-           
-            if (isEnPassantMove) {
-                board[enPassantVictimR][enPassantVictimC] = enPassantVictim;
-            }
-            
-          
-            enPassantTargetCol = originalEnPassantTargetCol;
-            enPassantTargetRow = originalEnPassantTargetRow;
-
-
-            if (moveValue > bestValue) 
-            {
-                bestValue = moveValue;
-                move = m;
-            }
-        }
-        return move;
-    }
-
-    private int alphaBeta(int depth, int alpha, int beta, boolean isMax, int maxDepth) {
-        if (depth == maxDepth || isGameOver()) return evaluateBoard();
-
-        if (isMax) {
-            int best = Integer.MIN_VALUE;
-            List<int[]> moves = generateAllValidMoves(false);
-            
-            for (int[] m : moves) 
-            {
-                Piece originalPiece = board[m[0]][m[1]];
-                Piece capturedPiece = board[m[2]][m[3]];
-                int originalEnPassantTargetCol = enPassantTargetCol;
-                int originalEnPassantTargetRow = enPassantTargetRow;
-                
-               
-                Piece enPassantVictim = null;
-                int enPassantVictimR = -1;
-                int enPassantVictimC = -1;
-                boolean isEnPassantMove = false;
-                
-                if (originalPiece != null && originalPiece.type.equals("P") && capturedPiece == null && m[3] == originalEnPassantTargetCol && m[2] == originalEnPassantTargetRow) {
-                    enPassantVictimR = m[2] - 1; 
-                    enPassantVictimC = m[3];
-                    enPassantVictim = board[enPassantVictimR][enPassantVictimC];
-                    board[enPassantVictimR][enPassantVictimC] = null;
-                    isEnPassantMove = true;
-                }
-
-                
-                board[m[2]][m[3]] = originalPiece;
-                board[m[0]][m[1]] = null;
-                
-              
-                boolean isCastling = originalPiece.type.equals("K") && Math.abs(m[1] - m[3]) == 2;
-                Piece originalRook = null;
-                int originalRookC = -1, newRookC = -1;
-                if (isCastling) 
-                {
-                    if (m[3] == 6) 
-                    { 
-                        originalRookC = 7; newRookC = 5;
-                    } 
-                    else 
-                    { 
-                        originalRookC = 0; newRookC = 3;
-                    }
-                    originalRook = board[m[0]][originalRookC];
-                    board[m[0]][newRookC] = originalRook;
-                    board[m[0]][originalRookC] = null;
-                }
-                
-               
-                if (originalPiece.type.equals("P") && Math.abs(m[0] - m[2]) == 2) 
-                {
-                    enPassantTargetRow = (m[0] + m[2]) / 2;
-                    enPassantTargetCol = m[1];
-                } 
-                else 
-                {
-                    enPassantTargetCol = -1;
-                    enPassantTargetRow = -1;
-                }
-
-
-                best = Math.max(best, alphaBeta(depth + 1, alpha, beta, false, maxDepth));
-
-               
-                if (isCastling) 
-                {
-                    board[m[0]][originalRookC] = originalRook;
-                    board[m[0]][newRookC] = null;
-                }
-                
-              
-                board[m[0]][m[1]] = originalPiece;
-                board[m[2]][m[3]] = capturedPiece;
-
-               
-                if (isEnPassantMove) 
-                {
-                    board[enPassantVictimR][enPassantVictimC] = enPassantVictim;
-                }
-
-                
-                enPassantTargetCol = originalEnPassantTargetCol;
-                enPassantTargetRow = originalEnPassantTargetRow;
+        if (!isValidMove(fromRow, fromCol, toRow, toCol)) 
+        return Move.NONE;
 
-                alpha = Math.max(alpha, best);
-                if (beta <= alpha) 
-                break;
-            }
-            return best;
-        } 
-        else 
+        int from = fromRow * 8 + fromCol, to = toRow * 8 + toCol;
+        for (int move : legalMoves()) 
         {
-            int best = Integer.MAX_VALUE;
-            List<int[]> moves = generateAllValidMoves(true); 
-            for (int[] m : moves) 
+            int promotion = Move.promotion(move);
+            if (Move.from(move) == from && Move.to(move) == to && (promotion == 0 || promotion == Position.QUEEN)) 
             {
-                Piece originalPiece = board[m[0]][m[1]];
-                Piece capturedPiece = board[m[2]][m[3]];
-                int originalEnPassantTargetCol = enPassantTargetCol;
-                int originalEnPassantTargetRow = enPassantTargetRow;
-                
-                
-                Piece enPassantVictim = null;
-                int enPassantVictimR = -1;
-                int enPassantVictimC = -1;
-                boolean isEnPassantMove = false;
-                
-                if (originalPiece != null && originalPiece.type.equals("P") && capturedPiece == null && m[3] == originalEnPassantTargetCol && m[2] == originalEnPassantTargetRow) {
-                    enPassantVictimR = m[2] + 1; 
-                    enPassantVictimC = m[3];
-                    enPassantVictim = board[enPassantVictimR][enPassantVictimC];
-                    board[enPassantVictimR][enPassantVictimC] = null;
-                    isEnPassantMove = true;
-                }
-
-                
-                board[m[2]][m[3]] = originalPiece;
-                board[m[0]][m[1]] = null;
-                
-               
-                boolean isCastling = originalPiece.type.equals("K") && Math.abs(m[1] - m[3]) == 2;
-                Piece originalRook = null;
-                int originalRookC = -1, newRookC = -1;
-                if (isCastling) 
-                {
-                    if (m[3] == 6) 
-                    { 
-                        originalRookC = 7; newRookC = 5;
-                    } 
-                    else 
-                    { 
-                        originalRookC = 0; newRookC = 3;
-                    }
-                    originalRook = board[m[0]][originalRookC];
-                    board[m[0]][newRookC] = originalRook;
-                    board[m[0]][originalRookC] = null;
-                }
-                
-              
-                if (originalPiece.type.equals("P") && Math.abs(m[0] - m[2]) == 2) 
-                {
-                    enPassantTargetRow = (m[0] + m[2]) / 2;
-                    enPassantTargetCol = m[1];
-                } 
-                else 
-                {
-                    enPassantTargetCol = -1;
-                    enPassantTargetRow = -1;
-                }
-                
-                best = Math.min(best, alphaBeta(depth + 1, alpha, beta, true, maxDepth));
-
-              
-                if (isCastling) 
-                {
-                    board[m[0]][originalRookC] = originalRook;
-                    board[m[0]][newRookC] = null;
-                }
-                
-               
-                board[m[0]][m[1]] = originalPiece;
-                board[m[2]][m[3]] = capturedPiece;
-
-              
-                if (isEnPassantMove) 
-                {
-                    board[enPassantVictimR][enPassantVictimC] = enPassantVictim;
-                }
-
-               
-                enPassantTargetCol = originalEnPassantTargetCol;
-                enPassantTargetRow = originalEnPassantTargetRow;
-
-                beta = Math.min(beta, best);
-                if (beta <= alpha) 
-                break; 
+                return move;
             }
-            return best;
         }
+        return Move.NONE;
     }
 
-    private int evaluateBoard() 
-    {
-        if (isKingInCheckmate(true)) 
-        return 1000000; 
-        if (isKingInCheckmate(false)) 
-        return -1000000; 
-        if (isStalemate(true) || isStalemate(false)) 
-        return 0;
-        
-        int score = 0;
-        for (int r = 0; r < 8; r++) 
-        {
-            for (int c = 0; c < 8; c++) 
-            {
-                Piece p = board[r][c];
-                if (p != null) 
-                {
-                    int val = switch (p.type) 
-                    {
-                        case "K" -> 900; 
-                        case "Q" -> 90;
-                        case "R" -> 50;
-                        case "B" -> 30;
-                        case "N" -> 30;
-                        case "P" -> 10;
-                        default -> 0;
-                    };
-                    
-                    val += getPositionalBonus(r, c, p.type, p.isWhite);
-
-                    score += p.isWhite ? -val : val;
-                }
-            }
-        }
-        return score;
-    }
-    
-    private int getPositionalBonus(int r, int c, String type, boolean isWhite) 
-    {
-        int bonus = 0;
-        
-        if (type.equals("P")) 
-        {
-            if (isWhite) 
-            {
-                bonus += (7 - r) * 2; 
-            } 
-            else 
-            {
-                bonus += r * 2; 
-            }
-        } 
-        else if (type.equals("N")) 
-        {
-            if (r > 2 && r < 5 && c > 2 && c < 5) bonus += 5; 
-        } 
-        else if (type.equals("K")) 
-        {
-             if (r < 2 || r > 5) bonus -= 20; 
-        }
-        return bonus;
-    }
     public static void main(String[] args) 
     {
         SwingUtilities.invokeLater(Chess::new);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+import java.io.BufferedReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs an EPD test suite (WAC, STS, ...) and counts the positions where the
+// engine finds a best move ("bm") or avoids the move to avoid ("am").
+//   java EpdSuite <file> [-time ms | -depth N] [-threads N] [-hash MB]
+// The file is read line by line while workers search; each worker searches one
+// position at a time with its own table. The table and move history are cleared
+// for every position, so with -depth the results do not depend on which worker
+// got which positions; -time results still vary with machine load.
+class EpdSuite
+{
+    // Everything a worker thread keeps from one position to the next.
+    private static final class Worker
+    {
+        final TranspositionTable table;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Search search;
+
+        Worker(int hashMb)
+        {
+            table = new TranspositionTable(hashMb);
+            search = new Search(table, stop, 0);
+        }
+    }
+
+    private final SearchLimits limits;
+    private final ThreadLocal<Worker> workers;
+    private final ThreadMXBean cpu = ManagementFactory.getThreadMXBean();
+
+    private final AtomicLong positions = new AtomicLong();
+    private final AtomicLong solved = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+
+    EpdSuite(SearchLimits limits, int hashMb)
+    {
+        this.limits = limits;
+        workers = ThreadLocal.withInitial(() -> new Worker(hashMb));
+    }
+
+    // One EPD record: the first four FEN fields, then ";"-separated operations.
+    private void solve(String line)
+    {
+        String[] fields = line.trim().split("\\s+", 5);
+        if (fields.length < 4) return;
+        Position pos;
+        try
+        {
+            pos = new Position(fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3]);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.out.println("skipped: " + e.getMessage());
+            return;
+        }
+
+        String id = "#" + (positions.get() + 1);
+        List<Integer> best = new ArrayList<>(), avoid = new ArrayList<>();
+        for (String operation : fields.length > 4 ? fields[4].split(";") : new String[0])
+        {
+            String[] words = operation.trim().split("\\s+");
+            if (words[0].equals("id") && words.length > 1)
+            {
+                id = operation.trim().substring(3).replace("\"", "");
+                continue;
+            }
+            List<Integer> moves = words[0].equals("bm") ? best : words[0].equals("am") ? avoid : null;
+            for (int i = 1; moves != null && i < words.length; i++)
+            {
+                int move = Move.parseSan(pos, words[i]);
+                if (move != Move.NONE) moves.add(move);
+            }
+        }
+
+        Worker worker = workers.get();
+        worker.stop.set(false);
+        worker.table.clear();
+        worker.search.clearHistory();
+        long cpuBefore = cpu.getCurrentThreadCpuTime();
+        int move = worker.search.bestMove(pos, limits);
+        cpuNanos.addAndGet(cpu.getCurrentThreadCpuTime() - cpuBefore);
+
+        boolean ok = (best.isEmpty() || best.contains(move)) && !avoid.contains(move)
+            && !(best.isEmpty() && avoid.isEmpty());
+        positions.incrementAndGet();
+        if (ok) solved.incrementAndGet();
+        nodes.addAndGet(worker.search.stats.nodes);
+        String played = move == Move.NONE ? "none" : Move.san(pos, move);
+        synchronized (System.out)
+        {
+            System.out.printf("%-12s %-4s %-8s depth %2d  %10d nodes%n", id, ok ? "ok" : "--", played,
+                worker.search.completedDepth, worker.search.stats.nodes);
+        }
+    }
+
+    void run(String file, int threads) throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // Only a few records are in flight at once, so a long file is never held in memory.
+        Semaphore inFlight = new Semaphore(threads * 2);
+        long start = System.nanoTime();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(file)))
+        {
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String record = line;
+                inFlight.acquire();
+                pool.submit(() -> {
+                    try
+                    {
+                        solve(record);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        e.printStackTrace();
+                    }
+                    finally
+                    {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double cpuSeconds = cpuNanos.get() / 1e9;
+        System.out.printf("solved %d of %d, %d nodes in %.1f s (%d threads): %.0f nps, %.2f positions/s, %.1f solved per cpu-minute%n",
+            solved.get(), positions.get(), nodes.get(), seconds, threads, nodes.get() / seconds,
+            positions.get() / seconds, solved.get() * 60 / Math.max(cpuSeconds, 1e-9));
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length == 0)
+        {
+            System.out.println("usage: java EpdSuite <file> [-time ms | -depth N] [-threads N] [-hash MB]");
+            return;
+        }
+        SearchLimits limits = SearchLimits.time(1000);
+        int threads = Runtime.getRuntime().availableProcessors(), hashMb = 16;
+        for (int i = 1; i + 1 < args.length; i += 2)
+        {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i])
+            {
+                case "-time" -> limits = SearchLimits.time(value);
+                case "-depth" -> limits = SearchLimits.depth(value);
+                case "-threads" -> threads = Math.max(1, value);
+                case "-hash" -> hashMb = Math.max(1, value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        new EpdSuite(limits, hashMb).run(args[0], threads);
+    }
+}
@@ -0,0 +1,324 @@
+// Static evaluation in centipawns: material plus piece-square tables, with a
+// middlegame and an endgame value for every piece on every square. The two are
+// blended by game phase, which runs from 24 with all minor and major pieces on
+// the board down to 0 with only kings and pawns left.
+//
+// Everything is precomputed into flat tables indexed by piece * 64 + square and
+// Position keeps the per-color totals up to date as pieces are put down and
+// picked up, so evaluating a node is a handful of array reads.
+//
+// Pawn structure (passed, doubled, isolated and backward pawns) and the pawn
+// shelter in front of each king depend on the pawns alone. They are scored once
+// per pawn structure and cached in a PawnTable keyed by Position.pawnKey.
+//
+// The tables are the published PeSTO values, laid out from White's side with a8
+// first; Black's entries are the same tables mirrored vertically.
+final class Evaluation
+{
+    // Used where a single value per piece is wanted, such as delta pruning.
+    static final int[] PIECE_VALUES = {82, 337, 365, 477, 1025, 0};
+
+    private static final int[] MIDDLEGAME_VALUES = {82, 337, 365, 477, 1025, 0};
+    private static final int[] ENDGAME_VALUES = {94, 281, 297, 512, 936, 0};
+
+    static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    static final int MAX_PHASE = 24;
+
+    // Passed pawn bonus by rank counted from the owner's side, rank 1 first.
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 45, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 40, 70, 110, 0};
+    private static final int DOUBLED_MIDDLEGAME = -10, DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10, ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8, BACKWARD_ENDGAME = -10;
+    // Per file next to the king: no penalty for a pawn on the second rank.
+    private static final int SHELTER_ADVANCED = -10, SHELTER_MISSING = -25;
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Per color and square: the squares a passed pawn must find free of enemy pawns,
+    // the squares ahead on its own file, and those on the neighbouring files level
+    // with or behind it where a pawn could still defend it.
+    private static final long[][] PASSED = new long[2][64];
+    private static final long[][] FORWARD_FILE = new long[2][64];
+    private static final long[][] SUPPORT = new long[2][64];
+    // The second and third ranks from each side's point of view.
+    private static final long[] SHELTER_NEAR = {0xFFL << 48, 0xFFL << 8};
+    private static final long[] SHELTER_FAR = {0xFFL << 40, 0xFFL << 16};
+
+    // Material plus square bonus from the owner's point of view, indexed by piece * 64 + square.
+    static final int[] MIDDLEGAME = new int[12 * 64];
+    static final int[] ENDGAME = new int[12 * 64];
+
+    private static final int[][] MIDDLEGAME_TABLES = {
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             98, 134,  61,  95,  68, 126,  34, -11,
+             -6,   7,  26,  31,  65,  56,  25, -20,
+            -14,  13,   6,  21,  23,  12,  17, -23,
+            -27,  -2,  -5,  12,  17,   6,  10, -25,
+            -26,  -4,  -4, -10,   3,   3,  33, -12,
+            -35,  -1, -20, -23, -15,  24,  38, -22,
+              0,   0,   0,   0,   0,   0,   0,   0,
+        },
+        {
+           -167, -89, -34, -49,  61, -97, -15,-107,
+            -73, -41,  72,  36,  23,  62,   7, -17,
+            -47,  60,  37,  65,  84, 129,  73,  44,
+             -9,  17,  19,  53,  37,  69,  18,  22,
+            -13,   4,  16,  13,  28,  19,  21,  -8,
+            -23,  -9,  12,  10,  19,  17,  25, -16,
+            -29, -53, -12,  -3,  -1,  18, -14, -19,
+           -105, -21, -58, -33, -17, -28, -19, -23,
+        },
+        {
+            -29,   4, -82, -37, -25, -42,   7,  -8,
+            -26,  16, -18, -13,  30,  59,  18, -47,
+            -16,  37,  43,  40,  35,  50,  37,  -2,
+             -4,   5,  19,  50,  37,  37,   7,  -2,
+             -6,  13,  13,  26,  34,  12,  10,   4,
+              0,  15,  15,  15,  14,  27,  18,  10,
+              4,  15,  16,   0,   7,  21,  33,   1,
+            -33,  -3, -14, -21, -13, -12, -39, -21,
+        },
+        {
+             32,  42,  32,  51,  63,   9,  31,  43,
+             27,  32,  58,  62,  80,  67,  26,  44,
+             -5,  19,  26,  36,  17,  45,  61,  16,
+            -24, -11,   7,  26,  24,  35,  -8, -20,
+            -36, -26, -12,  -1,   9,  -7,   6, -23,
+            -45, -25, -16, -17,   3,   0,  -5, -33,
+            -44, -16, -20,  -9,  -1,  11,  -6, -71,
+            -19, -13,   1,  17,  16,   7, -37, -26,
+        },
+        {
+            -28,   0,  29,  12,  59,  44,  43,  45,
+            -24, -39,  -5,   1, -16,  57,  28,  54,
+            -13, -17,   7,   8,  29,  56,  47,  57,
+            -27, -27, -16, -16,  -1,  17,  -2,   1,
+             -9, -26,  -9, -10,  -2,  -4,   3,  -3,
+            -14,   2, -11,  -2,  -5,   2,  14,   5,
+            -35,  -8,  11,   2,   8,  15,  -3,   1,
+             -1, -18,  -9,  10, -15, -25, -31, -50,
+        },
+        {
+            -65,  23,  16, -15, -56, -34,   2,  13,
+             29,  -1, -20,  -7,  -8,  -4, -38, -29,
+             -9,  24,   2, -16, -20,   6,  22, -22,
+            -17, -20, -12, -27, -30, -25, -14, -36,
+            -49,  -1, -27, -39, -46, -44, -33, -51,
+            -14, -14, -22, -46, -44, -30, -15, -27,
+              1,   7,  -8, -64, -43, -16,   9,   8,
+            -15,  36,  12, -54,   8, -28,  24,  14,
+        },
+    };
+
+    private static final int[][] ENDGAME_TABLES = {
+        {
+              0,   0,   0,   0,   0,   0,   0,   0,
+            178, 173, 158, 134, 147, 132, 165, 187,
+             94, 100,  85,  67,  56,  53,  82,  84,
+             32,  24,  13,   5,  -2,   4,  17,  17,
+             13,   9,  -3,  -7,  -7,  -8,   3,  -1,
+              4,   7,  -6,   1,   0,  -5,  -1,  -8,
+             13,   8,   8,  10,  13,   0,   2,  -7,
+              0,   0,   0,   0,   0,   0,   0,   0,
+        },
+        {
+            -58, -38, -13, -28, -31, -27, -63, -99,
+            -25,  -8, -25,  -2,  -9, -25, -24, -52,
+            -24, -20,  10,   9,  -1,  -9, -19, -41,
+            -17,   3,  22,  22,  22,  11,   8, -18,
+            -18,  -6,  16,  25,  16,  17,   4, -18,
+            -23,  -3,  -1,  15,  10,  -3, -20, -22,
+            -42, -20, -10,  -5,  -2, -20, -23, -44,
+            -29, -51, -23, -15, -22, -18, -50, -64,
+        },
+        {
+            -14, -21, -11,  -8,  -7,  -9, -17, -24,
+             -8,  -4,   7, -12,  -3, -13,  -4, -14,
+              2,  -8,   0,  -1,  -2,   6,   0,   4,
+             -3,   9,  12,   9,  14,  10,   3,   2,
+             -6,   3,  13,  19,   7,  10,  -3,  -9,
+            -12,  -3,   8,  10,  13,   3,  -7, -15,
+            -14, -18,  -7,  -1,   4,  -9, -15, -27,
+            -23,  -9, -23,  -5,  -9, -16,  -5, -17,
+        },
+        {
+             13,  10,  18,  15,  12,  12,   8,   5,
+             11,  13,  13,  11,  -3,   3,   8,   3,
+              7,   7,   7,   5,   4,  -3,  -5,  -3,
+              4,   3,  13,   1,   2,   1,  -1,   2,
+              3,   5,   8,   4,  -5,  -6,  -8, -11,
+             -4,   0,  -5,  -1,  -7, -12,  -8, -16,
+             -6,  -6,   0,   2,  -9,  -9, -11,  -3,
+             -9,   2,   3,  -1,  -5, -13,   4, -20,
+        },
+        {
+             -9,  22,  22,  27,  27,  19,  10,  20,
+            -17,  20,  32,  41,  58,  25,  30,   0,
+            -20,   6,   9,  49,  47,  35,  19,   9,
+              3,  22,  24,  45,  57,  40,  57,  36,
+            -18,  28,  19,  47,  31,  34,  39,  23,
+            -16, -27,  15,   6,   9,  17,  10,   5,
+            -22, -23, -30, -16, -16, -23, -36, -32,
+            -33, -28, -22, -43,  -5, -32, -20, -41,
+        },
+        {
+            -74, -35, -18, -18, -11,  15,   4, -17,
+            -12,  17,  14,  17,  17,  38,  23,  11,
+             10,  17,  23,  15,  20,  45,  44,  13,
+             -8,  22,  24,  27,  26,  33,  26,   3,
+            -18,  -4,  21,  24,  27,  23,   9, -11,
+            -19,  -3,  11,  21,  23,  16,   7,  -9,
+            -27, -11,   4,  13,  14,   4,  -5, -17,
+            -53, -34, -21, -11, -28, -14, -24, -43,
+        },
+    };
+
+    static
+    {
+        for (int piece = 0; piece < 12; piece++)
+        {
+            int type = Position.typeOf(piece);
+            for (int sq = 0; sq < 64; sq++)
+            {
+                // Square 0 is a8 in both the board and the tables; Black reads them upside down.
+                int tableSq = Position.colorOf(piece) == Position.WHITE ? sq : sq ^ 56;
+                MIDDLEGAME[piece * 64 + sq] = MIDDLEGAME_VALUES[type] + MIDDLEGAME_TABLES[type][tableSq];
+                ENDGAME[piece * 64 + sq] = ENDGAME_VALUES[type] + ENDGAME_TABLES[type][tableSq];
+            }
+        }
+
+        for (int file = 0; file < 8; file++)
+        {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++)
+        {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int sq = 0; sq < 64; sq++)
+        {
+            int row = sq >> 3, file = sq & 7;
+            // White moves towards row 0, Black towards row 7.
+            long[] ahead = {(1L << (row * 8)) - 1, row == 7 ? 0 : -1L << ((row + 1) * 8)};
+            long[] levelOrBehind = {-1L << (row * 8), row == 7 ? -1L : (1L << ((row + 1) * 8)) - 1};
+            for (int color = 0; color < 2; color++)
+            {
+                PASSED[color][sq] = ahead[color] & (FILES[file] | ADJACENT_FILES[file]);
+                FORWARD_FILE[color][sq] = ahead[color] & FILES[file];
+                SUPPORT[color][sq] = levelOrBehind[color] & ADJACENT_FILES[file];
+            }
+        }
+    }
+
+    private Evaluation()
+    {
+    }
+
+    // Scored for the side to move.
+    static int evaluate(Position pos, PawnTable pawns)
+    {
+        int us = pos.sideToMove, them = us ^ 1;
+        int entry = pawns.probe(pos);
+        int sign = us == Position.WHITE ? 1 : -1;
+        int middlegame = pos.middlegame[us] - pos.middlegame[them] + sign * pawns.middlegame(entry)
+            + pawns.shelter(entry, us, pos.kingSquare[us] & 7) - pawns.shelter(entry, them, pos.kingSquare[them] & 7);
+        int endgame = pos.endgame[us] - pos.endgame[them] + sign * pawns.endgame(entry);
+        return taper(middlegame, endgame, pos.phase);
+    }
+
+    // The same score summed square by square, pawn terms uncached; used to check
+    // and benchmark the running totals and the pawn table.
+    static int evaluateFull(Position pos)
+    {
+        int middlegame = 0, endgame = 0, phase = 0;
+        for (int sq = 0; sq < 64; sq++)
+        {
+            int p = pos.squares[sq];
+            if (p != Position.EMPTY)
+            {
+                int sign = Position.colorOf(p) == pos.sideToMove ? 1 : -1;
+                middlegame += sign * MIDDLEGAME[p * 64 + sq];
+                endgame += sign * ENDGAME[p * 64 + sq];
+                phase += PHASE_WEIGHTS[Position.typeOf(p)];
+            }
+        }
+        int[] pawns = new int[2];
+        pawnStructure(pos, pawns);
+        int sign = pos.sideToMove == Position.WHITE ? 1 : -1;
+        middlegame += sign * pawns[0];
+        endgame += sign * pawns[1];
+        for (int color = 0; color < 2; color++)
+        {
+            int shelter = shelter(pos.pieces[Position.piece(color, Position.PAWN)], color, pos.kingSquare[color] & 7);
+            middlegame += color == pos.sideToMove ? shelter : -shelter;
+        }
+        return taper(middlegame, endgame, phase);
+    }
+
+    // Middlegame and endgame pawn-structure score, White's minus Black's, into scores[0] and scores[1].
+    static void pawnStructure(Position pos, int[] scores)
+    {
+        int middlegame = 0, endgame = 0;
+        for (int color = 0; color < 2; color++)
+        {
+            int sign = color == Position.WHITE ? 1 : -1;
+            long own = pos.pieces[Position.piece(color, Position.PAWN)];
+            long enemy = pos.pieces[Position.piece(color ^ 1, Position.PAWN)];
+            for (long bits = own; bits != 0; bits &= bits - 1)
+            {
+                int sq = Long.numberOfTrailingZeros(bits);
+                int file = sq & 7;
+                int rank = color == Position.WHITE ? 7 - (sq >> 3) : sq >> 3;
+                // Only the front pawn of a doubled pair can be passed.
+                if ((own & FORWARD_FILE[color][sq]) != 0)
+                {
+                    middlegame += sign * DOUBLED_MIDDLEGAME;
+                    endgame += sign * DOUBLED_ENDGAME;
+                }
+                else if ((enemy & PASSED[color][sq]) == 0)
+                {
+                    middlegame += sign * PASSED_MIDDLEGAME[rank];
+                    endgame += sign * PASSED_ENDGAME[rank];
+                }
+                if ((own & ADJACENT_FILES[file]) == 0)
+                {
+                    middlegame += sign * ISOLATED_MIDDLEGAME;
+                    endgame += sign * ISOLATED_ENDGAME;
+                }
+                else if ((own & SUPPORT[color][sq]) == 0
+                    && (Attacks.PAWN[color][color == Position.WHITE ? sq - 8 : sq + 8] & enemy) != 0)
+                {
+                    // Nothing can defend it and an enemy pawn guards the square in front.
+                    middlegame += sign * BACKWARD_MIDDLEGAME;
+                    endgame += sign * BACKWARD_ENDGAME;
+                }
+            }
+        }
+        scores[0] = middlegame;
+        scores[1] = endgame;
+    }
+
+    // Penalty for the holes in a king's pawn cover, looking at its file and the two
+    // beside it (b-g for a king on an edge file).
+    static int shelter(long pawns, int color, int kingFile)
+    {
+        int centre = Math.min(Math.max(kingFile, 1), 6);
+        int penalty = 0;
+        for (int file = centre - 1; file <= centre + 1; file++)
+        {
+            long onFile = pawns & FILES[file];
+            if ((onFile & SHELTER_NEAR[color]) != 0) continue;
+            penalty += (onFile & SHELTER_FAR[color]) != 0 ? SHELTER_ADVANCED : SHELTER_MISSING;
+        }
+        return penalty;
+    }
+
+    // Early promotions can push the phase past its starting value.
+    private static int taper(int middlegame, int endgame, int phase)
+    {
+        int mg = Math.min(phase, MAX_PHASE);
+        return (middlegame * mg + endgame * (MAX_PHASE - mg)) / MAX_PHASE;
+    }
+}
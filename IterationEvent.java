@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder event for one completed iteration of one search thread.
+// Costs nothing unless a recording has it enabled.
+@Name("chess.Iteration")
+@Label("Search Iteration")
+@Category({"Chess", "Search"})
+@Description("One completed depth of iterative deepening on one search thread")
+final class IterationEvent extends jdk.jfr.Event
+{
+    @Label("Thread Id")
+    int thread;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    int score;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Best Move")
+    String bestMove;
+}
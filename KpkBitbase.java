@@ -0,0 +1,158 @@
+// King and pawn against king, solved by retrograde analysis the first time the
+// search meets such a position. Every position with the pawn's owner to move or
+// not is marked won or drawn and kept as one bit, 24 KB in all.
+//
+// Positions are indexed from the side of a White pawn on files a to d; others are
+// mirrored into that range when probed. A pawn on the seventh rank that can queen
+// without the queen being taken counts as won, which is the rule the table is
+// built from; everything else follows from the king moves and pawn pushes.
+final class KpkBitbase
+{
+    // White king, black king, side to move, pawn file a-d, pawn rank 7 down to 2.
+    private static final int SIZE = 2 * 64 * 64 * 4 * 6;
+
+    private static final byte INVALID = 0, UNKNOWN = 1, DRAW = 2, WIN = 4;
+
+    private static final long[] WINS = generate();
+
+    private KpkBitbase()
+    {
+    }
+
+    private static int index(int sideToMove, int whiteKing, int blackKing, int pawn)
+    {
+        return whiteKing | blackKing << 6 | sideToMove << 12 | (pawn & 7) << 13 | ((pawn >> 3) - 1) << 15;
+    }
+
+    // True when the side with the pawn wins with best play. The position must hold
+    // exactly the two kings and one pawn; a pawn on the first or last rank, which
+    // the table has no room for, is answered false.
+    static boolean isWin(Position pos)
+    {
+        int strong = pos.pieces[Position.piece(Position.WHITE, Position.PAWN)] != 0 ? Position.WHITE : Position.BLACK;
+        int pawn = Long.numberOfTrailingZeros(pos.pieces[Position.piece(strong, Position.PAWN)]);
+        if (pawn < 8 || pawn >= 56) return false;
+        int strongKing = pos.kingSquare[strong], weakKing = pos.kingSquare[strong ^ 1];
+        int sideToMove = pos.sideToMove == strong ? Position.WHITE : Position.BLACK;
+        // Turn the board round for a Black pawn, then mirror files e-h onto d-a.
+        int flip = (strong == Position.BLACK ? 56 : 0) ^ ((pawn & 7) > 3 ? 7 : 0);
+        int i = index(sideToMove, strongKing ^ flip, weakKing ^ flip, pawn ^ flip);
+        return (WINS[i >>> 6] & 1L << i) != 0;
+    }
+
+    private static long[] generate()
+    {
+        long start = System.nanoTime();
+        byte[] results = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++)
+        {
+            results[i] = initial(i);
+        }
+
+        boolean changed = true;
+        int passes = 0;
+        while (changed)
+        {
+            changed = false;
+            passes++;
+            for (int i = 0; i < SIZE; i++)
+            {
+                if (results[i] != UNKNOWN) continue;
+                results[i] = classify(results, i);
+                changed |= results[i] != UNKNOWN;
+            }
+        }
+
+        long[] wins = new long[SIZE / 64];
+        int count = 0;
+        for (int i = 0; i < SIZE; i++)
+        {
+            if (results[i] != WIN) continue;
+            wins[i >>> 6] |= 1L << i;
+            count++;
+        }
+        System.err.printf("kpk bitbase: %d positions, %d won, %d passes, %d bytes, generated in %d ms%n",
+            SIZE, count, passes, wins.length * 8, (System.nanoTime() - start) / 1_000_000);
+        return wins;
+    }
+
+    private static int whiteKing(int i)
+    {
+        return i & 63;
+    }
+
+    private static int blackKing(int i)
+    {
+        return (i >> 6) & 63;
+    }
+
+    private static int sideToMove(int i)
+    {
+        return (i >> 12) & 1;
+    }
+
+    private static int pawn(int i)
+    {
+        return (((i >> 15) + 1) << 3) | ((i >> 13) & 3);
+    }
+
+    private static boolean adjacent(int a, int b)
+    {
+        return (Attacks.KING[a] & 1L << b) != 0;
+    }
+
+    // Results that follow from the position alone: impossible ones, safe promotions,
+    // stalemates and an undefended pawn the black king can take.
+    private static byte initial(int i)
+    {
+        int wk = whiteKing(i), bk = blackKing(i), pawn = pawn(i);
+        if (wk == bk || adjacent(wk, bk) || wk == pawn || bk == pawn) return INVALID;
+
+        if (sideToMove(i) == Position.WHITE)
+        {
+            // Black would have been left in check.
+            if ((Attacks.PAWN[Position.WHITE][pawn] & 1L << bk) != 0) return INVALID;
+            int queen = pawn - 8;
+            if (pawn >> 3 == 1 && wk != queen && bk != queen && (!adjacent(bk, queen) || adjacent(wk, queen)))
+            {
+                return WIN;
+            }
+            return UNKNOWN;
+        }
+
+        long covered = Attacks.KING[wk] | Attacks.PAWN[Position.WHITE][pawn];
+        if ((Attacks.KING[bk] & ~covered) == 0) return DRAW;
+        if (adjacent(bk, pawn) && !adjacent(wk, pawn)) return DRAW;
+        return UNKNOWN;
+    }
+
+    // White wins if any move reaches a win and draws if every move draws; Black the other way round.
+    private static byte classify(byte[] results, int i)
+    {
+        int wk = whiteKing(i), bk = blackKing(i), pawn = pawn(i);
+        int reached = 0;
+        if (sideToMove(i) == Position.WHITE)
+        {
+            for (long moves = Attacks.KING[wk]; moves != 0; moves &= moves - 1)
+            {
+                reached |= results[index(Position.BLACK, Long.numberOfTrailingZeros(moves), bk, pawn)];
+            }
+            // Pushes to the eighth rank are settled by the initial results.
+            if (pawn >> 3 > 1)
+            {
+                reached |= results[index(Position.BLACK, wk, bk, pawn - 8)];
+            }
+            if (pawn >> 3 == 6 && pawn - 8 != wk && pawn - 8 != bk)
+            {
+                reached |= results[index(Position.BLACK, wk, bk, pawn - 16)];
+            }
+            return (reached & WIN) != 0 ? WIN : (reached & UNKNOWN) != 0 ? UNKNOWN : DRAW;
+        }
+
+        for (long moves = Attacks.KING[bk]; moves != 0; moves &= moves - 1)
+        {
+            reached |= results[index(Position.WHITE, wk, Long.numberOfTrailingZeros(moves), pawn)];
+        }
+        return (reached & DRAW) != 0 ? DRAW : (reached & UNKNOWN) != 0 ? UNKNOWN : WIN;
+    }
+}
@@ -0,0 +1,128 @@
+// Moves are packed into an int: from square (6 bits), to square (6 bits),
+// promotion piece type (3 bits) and flag bits above that. Zero is never a
+// legal move and stands for "no move".
+final class Move
+{
+    static final int NONE = 0;
+
+    static final int CAPTURE = 1 << 15;
+    static final int EN_PASSANT = 1 << 16;
+    static final int CASTLING = 1 << 17;
+    static final int DOUBLE_PUSH = 1 << 18;
+
+    // The part of a move the transposition table keeps; enough to find it again in a move list.
+    static final int KEY_MASK = (1 << 15) - 1;
+
+    // Longest legal move list for any position is 218.
+    static final int MAX_MOVES = 256;
+
+    private Move()
+    {
+    }
+
+    static int of(int from, int to, int promotion, int flags)
+    {
+        return from | to << 6 | promotion << 12 | flags;
+    }
+
+    static int from(int move)
+    {
+        return move & 63;
+    }
+
+    static int to(int move)
+    {
+        return (move >>> 6) & 63;
+    }
+
+    static int promotion(int move)
+    {
+        return (move >>> 12) & 7;
+    }
+
+    static boolean isCapture(int move)
+    {
+        return (move & (CAPTURE | EN_PASSANT)) != 0;
+    }
+
+    static boolean isTactical(int move)
+    {
+        return isCapture(move) || promotion(move) == Position.QUEEN;
+    }
+
+    // Finds the legal move written in coordinate notation (e2e4, e7e8q), or NONE.
+    static int parse(Position pos, String name)
+    {
+        for (int move : pos.legalMoves())
+        {
+            if (name(move).equals(name)) return move;
+        }
+        return NONE;
+    }
+
+    // Finds the legal move written in standard algebraic notation (Nf3, exd5, e8=Q+, O-O)
+    // or coordinate notation, or NONE. Check marks and annotations are ignored.
+    static int parseSan(Position pos, String text)
+    {
+        String wanted = stripSuffix(text).replace('0', 'O');
+        for (int move : pos.legalMoves())
+        {
+            if (stripSuffix(san(pos, move)).equals(wanted) || name(move).equals(text)) return move;
+        }
+        return NONE;
+    }
+
+    private static String stripSuffix(String san)
+    {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        return san.substring(0, end);
+    }
+
+    // Standard algebraic notation for a legal move in the given position.
+    static String san(Position pos, int move)
+    {
+        int from = from(move), to = to(move);
+        int piece = pos.squares[from];
+        StringBuilder san = new StringBuilder();
+        if ((move & CASTLING) != 0)
+        {
+            san.append(to > from ? "O-O" : "O-O-O");
+        }
+        else if (Position.typeOf(piece) == Position.PAWN)
+        {
+            if (isCapture(move)) san.append(Position.squareName(from).charAt(0)).append('x');
+            san.append(Position.squareName(to));
+            if (promotion(move) != 0) san.append('=').append("NBRQ".charAt(promotion(move) - Position.KNIGHT));
+        }
+        else
+        {
+            san.append("PNBRQK".charAt(Position.typeOf(piece)));
+            boolean ambiguous = false, sameFile = false, sameRank = false;
+            for (int other : pos.legalMoves())
+            {
+                int otherFrom = from(other);
+                if (to(other) != to || otherFrom == from || pos.squares[otherFrom] != piece) continue;
+                ambiguous = true;
+                sameFile |= (otherFrom & 7) == (from & 7);
+                sameRank |= (otherFrom >> 3) == (from >> 3);
+            }
+            String square = Position.squareName(from);
+            if (ambiguous && (!sameFile || sameRank)) san.append(square.charAt(0));
+            if (ambiguous && sameFile) san.append(square.charAt(1));
+            if (isCapture(move)) san.append('x');
+            san.append(Position.squareName(to));
+        }
+
+        Position after = new Position(pos);
+        after.makeMove(move);
+        if (after.isInCheck(after.sideToMove)) san.append(after.legalMoves().length == 0 ? '#' : '+');
+        return san.toString();
+    }
+
+    static String name(int move)
+    {
+        String name = Position.squareName(from(move)) + Position.squareName(to(move));
+        return promotion(move) == 0 ? name : name + "nbrq".charAt(promotion(move) - Position.KNIGHT);
+    }
+}
@@ -0,0 +1,134 @@
+// Hands out a node's moves best-first: the hash move, then captures by most
+// valuable victim / least valuable attacker, then killer moves, then quiet moves
+// by history score, and last the captures that static exchange evaluation says
+// lose material. Nothing past the hash move is scored until it is needed.
+// The search keeps one picker per ply and re-initialises it at every node.
+final class MovePicker
+{
+    private static final int HASH_MOVE = 0, SCORE = 1, PICK = 2;
+
+    private static final int CAPTURE_BASE = 1 << 28;
+    private static final int KILLER_BASE = 1 << 27;
+    // Below every quiet move, whose history scores are never negative.
+    private static final int LOSING_CAPTURE_BASE = -(1 << 28);
+
+    private final int[][] history;
+    private final int[] scores = new int[Move.MAX_MOVES];
+
+    private Position pos;
+    private int[] moves;
+    private int start, end, next;
+    private int ttMove, killer1, killer2;
+    private int stage;
+    private boolean losingCapture;
+
+    MovePicker(int[][] history)
+    {
+        this.history = history;
+    }
+
+    // Picks from moves[start..end), reordering that range in place.
+    void init(Position pos, int[] moves, int start, int end, int ttMove, int[] killers)
+    {
+        this.pos = pos;
+        this.moves = moves;
+        this.start = start;
+        this.end = end;
+        this.next = start;
+        this.ttMove = ttMove;
+        this.killer1 = killers[0];
+        this.killer2 = killers[1];
+        this.stage = HASH_MOVE;
+    }
+
+    // Returns Move.NONE once every move has been handed out.
+    int next()
+    {
+        if (stage == HASH_MOVE)
+        {
+            stage = SCORE;
+            if (ttMove != Move.NONE)
+            {
+                for (int i = start; i < end; i++)
+                {
+                    if ((moves[i] & Move.KEY_MASK) == ttMove)
+                    {
+                        swap(start, i);
+                        next = start + 1;
+                        losingCapture = false;
+                        return moves[start];
+                    }
+                }
+            }
+        }
+        if (stage == SCORE)
+        {
+            stage = PICK;
+            for (int i = next; i < end; i++)
+            {
+                scores[i - start] = score(moves[i]);
+            }
+        }
+        if (next >= end) return Move.NONE;
+
+        int best = next;
+        for (int i = next + 1; i < end; i++)
+        {
+            if (scores[i - start] > scores[best - start]) best = i;
+        }
+        swap(next, best);
+        losingCapture = scores[next - start] < 0;
+        return moves[next++];
+    }
+
+    // Whether the move last handed out is a capture that loses material by static exchange.
+    boolean isLosingCapture()
+    {
+        return losingCapture;
+    }
+
+    private int score(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        int attacker = Position.typeOf(pos.squares[from]);
+        if ((move & Move.CAPTURE) != 0)
+        {
+            int victim = Position.typeOf(pos.squares[to]);
+            int order = mvvLva(victim, attacker) + Move.promotion(move);
+            // Taking a piece worth at least the attacker cannot lose material, so only the rest are exchanged out.
+            if (Evaluation.PIECE_VALUES[attacker] <= Evaluation.PIECE_VALUES[victim] || pos.see(move) >= 0)
+            {
+                return CAPTURE_BASE + order;
+            }
+            return LOSING_CAPTURE_BASE + order;
+        }
+        if ((move & Move.EN_PASSANT) != 0)
+        {
+            return CAPTURE_BASE + mvvLva(Position.PAWN, Position.PAWN);
+        }
+        if (Move.promotion(move) == Position.QUEEN)
+        {
+            return CAPTURE_BASE + mvvLva(Position.QUEEN, Position.PAWN);
+        }
+
+        if (move == killer1) return KILLER_BASE + 1;
+        if (move == killer2) return KILLER_BASE;
+        return history[pos.squares[from]][to];
+    }
+
+    static int mvvLva(int victimType, int attackerType)
+    {
+        return (victimType + 1) * 8 - attackerType;
+    }
+
+    private void swap(int i, int j)
+    {
+        if (i == j) return;
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        int score = scores[i - start];
+        scores[i - start] = scores[j - start];
+        scores[j - start] = score;
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Lazy SMP: helper threads search the same root on their own Position copies
+// and feed the shared transposition table; the main thread's result is played.
+final class ParallelSearch
+{
+    private final TranspositionTable table;
+    private final AtomicBoolean stop = new AtomicBoolean();
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    // -Dchess.statsLog=true writes SearchStats.logLine to stderr after every search.
+    private static final boolean LOG_STATS = Boolean.getBoolean("chess.statsLog");
+
+    ParallelSearch(TranspositionTable table, int threads)
+    {
+        this.table = table;
+        searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++)
+        {
+            searches[i] = new Search(table, stop, i);
+        }
+        helpers = searches.length > 1 ? Executors.newFixedThreadPool(searches.length - 1, r -> {
+            Thread thread = new Thread(r, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    int threads()
+    {
+        return searches.length;
+    }
+
+    Search main()
+    {
+        return searches[0];
+    }
+
+    int bestMove(Position root, SearchLimits limits)
+    {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        stop.set(false);
+        table.newSearch();
+
+        List<Future<?>> running = new ArrayList<>();
+        SearchLimits helperLimits = new SearchLimits(limits.depth, 0, 0, limits.variety);
+        for (int i = 1; i < searches.length; i++)
+        {
+            Search helper = searches[i];
+            Position copy = new Position(root);
+            running.add(helpers.submit(() -> helper.bestMove(copy, helperLimits)));
+        }
+
+        int best = searches[0].bestMove(new Position(root), limits);
+        stop.set(true);
+        for (Future<?> helper : running)
+        {
+            try
+            {
+                helper.get();
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        if (event.shouldCommit() || LOG_STATS)
+        {
+            SearchStats stats = stats();
+            if (event.shouldCommit())
+            {
+                event.bestMove = best == Move.NONE ? null : Move.name(best);
+                event.depth = stats.completedDepth;
+                event.score = stats.score;
+                event.threads = stats.threads;
+                event.nodes = stats.nodes;
+                event.nodesPerSecond = stats.nodesPerSecond();
+                event.quiescenceNodes = stats.quiescenceNodes;
+                event.evaluations = stats.evaluations;
+                event.cutoffs = stats.cutoffs;
+                event.firstMoveCutoffRate = stats.firstMoveCutoffRate();
+                event.ttProbes = stats.ttProbes;
+                event.ttHits = stats.ttHits;
+                event.pawnHitRate = stats.pawnHitRate();
+                event.branchingFactor = stats.branchingFactor();
+                event.commit();
+            }
+            if (LOG_STATS) System.err.println(stats.logLine() + " move=" + (best == Move.NONE ? "none" : Move.name(best)));
+        }
+        return best;
+    }
+
+    // Only the main search keeps time; helpers stop when it does.
+    void limitTime(long millis)
+    {
+        searches[0].limitTime(millis);
+    }
+
+    void stop()
+    {
+        stop.set(true);
+    }
+
+    void shutdown()
+    {
+        stop();
+        if (helpers != null) helpers.shutdownNow();
+    }
+
+    // Counters of all threads added up. Exact once bestMove has returned; while a
+    // search runs the helpers' counts may lag a little.
+    SearchStats stats()
+    {
+        SearchStats[] parts = new SearchStats[searches.length];
+        for (int i = 0; i < searches.length; i++)
+        {
+            parts[i] = searches[i].stats;
+        }
+        return SearchStats.merge(parts);
+    }
+}
@@ -0,0 +1,85 @@
+// Pawn-structure scores cached by the pawn-only Zobrist key. Pawns move far less
+// often than pieces, so most evaluations find their structure already scored and
+// pay for a single array read instead of the per-pawn bitboard work.
+//
+// Each entry holds the structure's middlegame and endgame score (White's minus
+// Black's) and the king shelter penalty for either king on each of the eight
+// files. Entries are always replaced; one table belongs to one search thread.
+final class PawnTable
+{
+    private static final int ENTRY_BYTES = 32;
+
+    private final long[] keys;
+    private final int[] middlegame;
+    private final int[] endgame;
+    // Eight files per color, color * 8 + file within an entry.
+    private final byte[] shelter;
+    private final int mask;
+    private final int[] scratch = new int[2];
+
+    long probes;
+    long hits;
+
+    PawnTable(int megabytes)
+    {
+        long entries = Math.max(1, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 26));
+        keys = new long[size];
+        middlegame = new int[size];
+        endgame = new int[size];
+        shelter = new byte[size * 16];
+        mask = size - 1;
+        clear();
+    }
+
+    // A key no pawn structure is expected to have, so empty slots never match.
+    void clear()
+    {
+        java.util.Arrays.fill(keys, -1L);
+    }
+
+    // Returns the entry for the position's pawns, scoring them first on a miss.
+    int probe(Position pos)
+    {
+        probes++;
+        int index = (int) pos.pawnKey & mask;
+        if (keys[index] == pos.pawnKey)
+        {
+            hits++;
+            return index;
+        }
+        Evaluation.pawnStructure(pos, scratch);
+        middlegame[index] = scratch[0];
+        endgame[index] = scratch[1];
+        for (int color = 0; color < 2; color++)
+        {
+            long pawns = pos.pieces[Position.piece(color, Position.PAWN)];
+            for (int file = 0; file < 8; file++)
+            {
+                shelter[index * 16 + color * 8 + file] = (byte) Evaluation.shelter(pawns, color, file);
+            }
+        }
+        keys[index] = pos.pawnKey;
+        return index;
+    }
+
+    int middlegame(int entry)
+    {
+        return middlegame[entry];
+    }
+
+    int endgame(int entry)
+    {
+        return endgame[entry];
+    }
+
+    int shelter(int entry, int color, int file)
+    {
+        return shelter[entry * 16 + color * 8 + file];
+    }
+
+    double hitRate()
+    {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless move generator check.
+//   java Perft <depth> [fen]        leaf count with a per-root-move breakdown
+//   java Perft suite [maxDepth]     reference positions against known counts
+// Either form accepts "-threads N" to split the root moves across cores.
+class Perft
+{
+    private static final String[][] REFERENCE = {
+        {"start", Position.START_FEN,
+            "20 400 8902 197281 4865609"},
+        {"kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "48 2039 97862 4085603"},
+        {"endgame", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "14 191 2812 43238 674624"},
+        {"promotions", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "6 264 9467 422333"},
+        {"discovered", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "44 1486 62379 2103487"},
+        {"middlegame", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "46 2079 89890 3894594"},
+    };
+
+    // One position made and unmade in place, with a slice of the move array per ply.
+    private static final class Tree
+    {
+        final Position pos;
+        final int[] moves;
+
+        Tree(Position root, int depth)
+        {
+            pos = new Position(root);
+            moves = new int[(depth + 1) * Move.MAX_MOVES];
+        }
+
+        long perft(int ply, int depth)
+        {
+            if (depth == 0) return 1;
+            int start = ply * Move.MAX_MOVES;
+            int end = pos.generateLegalMoves(moves, start);
+            if (depth == 1) return end - start;
+
+            long nodes = 0;
+            for (int i = start; i < end; i++)
+            {
+                pos.makeMove(moves[i]);
+                nodes += perft(ply + 1, depth - 1);
+                pos.unmakeMove(moves[i]);
+            }
+            return nodes;
+        }
+    }
+
+    static long perft(Position pos, int depth)
+    {
+        return new Tree(pos, depth).perft(0, depth);
+    }
+
+    static long divide(Position pos, int depth, int threads, boolean print) throws Exception
+    {
+        // Depth 0 is the position itself, with no moves to split by.
+        if (depth == 0) return 1;
+        int[] moves = pos.legalMoves();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int move : moves)
+            {
+                Position child = new Position(pos);
+                child.makeMove(move);
+                counts.add(pool.submit(() -> perft(child, depth - 1)));
+            }
+
+            long total = 0;
+            for (int i = 0; i < moves.length; i++)
+            {
+                long nodes = counts.get(i).get();
+                if (print) System.out.println(Move.name(moves[i]) + ": " + nodes);
+                total += nodes;
+            }
+            return total;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean runSuite(int maxDepth, int threads) throws Exception
+    {
+        boolean passed = true;
+        long totalNodes = 0, totalNanos = 0;
+        for (String[] ref : REFERENCE)
+        {
+            String[] expected = ref[2].split(" ");
+            for (int depth = 1; depth <= Math.min(maxDepth, expected.length); depth++)
+            {
+                long start = System.nanoTime();
+                long nodes = divide(new Position(ref[1]), depth, threads, false);
+                long nanos = System.nanoTime() - start;
+                boolean ok = nodes == Long.parseLong(expected[depth - 1]);
+                passed &= ok;
+                totalNodes += nodes;
+                totalNanos += nanos;
+                System.out.printf("%-10s depth %d  %10d  %s  %s%n", ref[0], depth, nodes,
+                    ok ? "ok  " : "FAIL (expected " + expected[depth - 1] + ")", rate(nodes, nanos));
+            }
+        }
+        System.out.println("total " + totalNodes + " nodes, " + rate(totalNodes, totalNanos)
+            + (passed ? ", all counts match" : ", MISMATCHES FOUND"));
+        return passed;
+    }
+
+    private static String rate(long nodes, long nanos)
+    {
+        return String.format("%.0f nps", nodes * 1e9 / Math.max(1, nanos));
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int threads = 1;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else rest.add(args[i]);
+        }
+        if (rest.isEmpty())
+        {
+            System.out.println("usage: java Perft <depth> [fen] | suite [maxDepth]  [-threads N]");
+            return;
+        }
+
+        if (rest.get(0).equals("suite"))
+        {
+            int maxDepth = rest.size() > 1 ? Integer.parseInt(rest.get(1)) : 4;
+            if (!runSuite(maxDepth, threads)) System.exit(1);
+            return;
+        }
+
+        int depth = Integer.parseInt(rest.get(0));
+        if (depth < 0)
+        {
+            System.out.println("usage: java Perft <depth> [fen] | suite [maxDepth]  [-threads N]; depth must not be negative");
+            return;
+        }
+        String fen = rest.size() > 1 ? String.join(" ", rest.subList(1, rest.size())) : Position.START_FEN;
+        long start = System.nanoTime();
+        long nodes = divide(new Position(fen), depth, threads, true);
+        long nanos = System.nanoTime() - start;
+        System.out.println();
+        System.out.println("nodes " + nodes + "  time " + nanos / 1_000_000 + " ms  " + rate(nodes, nanos)
+            + "  threads " + threads);
+    }
+}
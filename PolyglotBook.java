@@ -0,0 +1,260 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+// Opening book in the Polyglot .bin format: 16-byte big-endian entries of
+// key, move, weight and learn data, sorted by key. The file is memory-mapped and
+// binary-searched in place, so a book of any size costs no heap.
+//
+//   java PolyglotBook build <games.txt> <book.bin> [plies]   one game per line, moves as e2e4 e7e5 ...
+//   java PolyglotBook probe <book.bin> [fen]                 book moves and weights for a position
+//
+// Keys are standard Polyglot keys made from the published Random64 table, so books
+// built by other tools can be read and books built here can be read by them.
+// -Dchess.polyglotRandom may name a file of 781 hex values to use instead.
+final class PolyglotBook
+{
+    private static final int ENTRY_BYTES = 16;
+    private static final int CASTLING_OFFSET = 768, EN_PASSANT_OFFSET = 772, TURN_OFFSET = 780;
+
+    static final long[] RANDOM = loadRandom(System.getProperty("chess.polyglotRandom"));
+
+    private final MappedByteBuffer entries;
+    private final int count;
+    private final int maxPly;
+    private final Random random = new Random();
+
+    // Only positions up to maxPly half-moves into the game are looked up.
+    PolyglotBook(Path file, int maxPly) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        entries.order(ByteOrder.BIG_ENDIAN);
+        count = entries.capacity() / ENTRY_BYTES;
+        this.maxPly = maxPly;
+    }
+
+    // The book named by a system property, or null when there is none or it can't be read.
+    static PolyglotBook fromProperty(String property, int maxPly)
+    {
+        String file = System.getProperty(property);
+        if (file == null) return null;
+        try
+        {
+            return new PolyglotBook(Paths.get(file), maxPly);
+        }
+        catch (IOException e)
+        {
+            System.err.println("book " + file + " not loaded: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long[] loadRandom(String file)
+    {
+        long[] keys = new long[PolyglotRandom.KEYS.length];
+        if (file != null)
+        {
+            try
+            {
+                String[] words = Files.readString(Paths.get(file)).split("[\\s,]+");
+                int n = 0;
+                for (String word : words)
+                {
+                    if (word.isEmpty()) continue;
+                    if (n == keys.length) break;
+                    keys[n++] = Long.parseUnsignedLong(word.replaceFirst("^0[xX]", "").replaceFirst("[uUlL]+$", ""), 16);
+                }
+                if (n == keys.length) return keys;
+                System.err.println(file + " has " + n + " keys, need 781; using the standard keys");
+            }
+            catch (IOException | NumberFormatException e)
+            {
+                System.err.println(file + " not loaded: " + e.getMessage() + "; using the standard keys");
+            }
+        }
+        return PolyglotRandom.KEYS;
+    }
+
+    static long key(Position pos)
+    {
+        long key = 0;
+        for (long bits = pos.occupied; bits != 0; bits &= bits - 1)
+        {
+            int sq = Long.numberOfTrailingZeros(bits);
+            int piece = pos.squares[sq];
+            int kind = 2 * Position.typeOf(piece) + (Position.colorOf(piece) == Position.WHITE ? 1 : 0);
+            key ^= RANDOM[64 * kind + 8 * (7 - (sq >> 3)) + (sq & 7)];
+        }
+        if ((pos.castlingRights & Position.WHITE_KINGSIDE) != 0) key ^= RANDOM[CASTLING_OFFSET];
+        if ((pos.castlingRights & Position.WHITE_QUEENSIDE) != 0) key ^= RANDOM[CASTLING_OFFSET + 1];
+        if ((pos.castlingRights & Position.BLACK_KINGSIDE) != 0) key ^= RANDOM[CASTLING_OFFSET + 2];
+        if ((pos.castlingRights & Position.BLACK_QUEENSIDE) != 0) key ^= RANDOM[CASTLING_OFFSET + 3];
+        // Polyglot only counts the en passant file when a pawn can actually take there.
+        int ep = pos.enPassantSquare;
+        int us = pos.sideToMove;
+        if (ep != -1 && (Attacks.PAWN[us ^ 1][ep] & pos.pieces[Position.piece(us, Position.PAWN)]) != 0)
+        {
+            key ^= RANDOM[EN_PASSANT_OFFSET + (ep & 7)];
+        }
+        if (us == Position.WHITE) key ^= RANDOM[TURN_OFFSET];
+        return key;
+    }
+
+    // Polyglot move: to file, to rank, from file, from rank, promotion, three bits each.
+    // Castling is written as the king taking its own rook.
+    static int encode(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        if ((move & Move.CASTLING) != 0) to = to > from ? from + 3 : from - 4;
+        int promotion = Move.promotion(move);
+        return (to & 7) | (7 - (to >> 3)) << 3 | (from & 7) << 6 | (7 - (from >> 3)) << 9
+            | (promotion == 0 ? 0 : promotion - Position.KNIGHT + 1) << 12;
+    }
+
+    private long keyAt(int index)
+    {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    // First entry whose key is not below the given one.
+    private int lowerBound(long key)
+    {
+        int lo = 0, hi = count;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Legal book moves for the position with their weights, in file order.
+    List<int[]> moves(Position pos)
+    {
+        List<int[]> found = new ArrayList<>();
+        long key = key(pos);
+        int[] legal = pos.legalMoves();
+        for (int i = lowerBound(key); i < count && keyAt(i) == key; i++)
+        {
+            int raw = entries.getShort(i * ENTRY_BYTES + 8) & 0xFFFF;
+            int weight = entries.getShort(i * ENTRY_BYTES + 10) & 0xFFFF;
+            for (int move : legal)
+            {
+                if (encode(move) == raw) found.add(new int[] {move, weight});
+            }
+        }
+        return found;
+    }
+
+    // A book move picked with probability proportional to its weight, or Move.NONE
+    // when the position is not in the book or is past the book depth.
+    int probe(Position pos)
+    {
+        int ply = 2 * (pos.fullmoveNumber - 1) + pos.sideToMove;
+        if (ply >= maxPly) return Move.NONE;
+        List<int[]> candidates = moves(pos);
+        int total = 0;
+        for (int[] candidate : candidates)
+        {
+            total += candidate[1];
+        }
+        if (total == 0) return candidates.isEmpty() ? Move.NONE : candidates.get(0)[0];
+
+        int pick = random.nextInt(total);
+        for (int[] candidate : candidates)
+        {
+            pick -= candidate[1];
+            if (pick < 0) return candidate[0];
+        }
+        return Move.NONE;
+    }
+
+    // Counts every (position, move) pair from the first plies of each game and
+    // writes them as a sorted book, weights scaled to fit 16 bits.
+    private static void build(Path games, Path out, int plies) throws IOException
+    {
+        Map<Long, Map<Integer, Integer>> counts = new TreeMap<>(Long::compareUnsigned);
+        int read = 0;
+        try (BufferedReader in = Files.newBufferedReader(games))
+        {
+            for (String line = in.readLine(); line != null; line = in.readLine())
+            {
+                if (line.isBlank()) continue;
+                read++;
+                Position pos = new Position();
+                String[] words = line.trim().split("\\s+");
+                for (int i = 0; i < Math.min(plies, words.length); i++)
+                {
+                    int move = Move.parseSan(pos, words[i]);
+                    if (move == Move.NONE) break;
+                    counts.computeIfAbsent(key(pos), k -> new TreeMap<>()).merge(encode(move), 1, Integer::sum);
+                    pos.makeMove(move);
+                }
+            }
+        }
+
+        int max = 1;
+        for (Map<Integer, Integer> moves : counts.values())
+        {
+            for (int n : moves.values()) max = Math.max(max, n);
+        }
+        int written = 0;
+        try (DataOutputStream book = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(out))))
+        {
+            for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet())
+            {
+                for (Map.Entry<Integer, Integer> move : position.getValue().entrySet())
+                {
+                    book.writeLong(position.getKey());
+                    book.writeShort(move.getKey());
+                    book.writeShort(Math.max(1, (int) ((long) move.getValue() * 0xFFFF / max)));
+                    book.writeInt(0);
+                    written++;
+                }
+            }
+        }
+        System.out.println(read + " games, " + counts.size() + " positions, " + written + " entries written to " + out);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length >= 3 && args[0].equals("build"))
+        {
+            build(Paths.get(args[1]), Paths.get(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 16);
+        }
+        else if (args.length >= 2 && args[0].equals("probe"))
+        {
+            String fen = args.length > 2 ? String.join(" ", Arrays.copyOfRange(args, 2, args.length))
+                : Position.START_FEN;
+            Position pos = new Position(fen);
+            PolyglotBook book = new PolyglotBook(Paths.get(args[1]), Integer.MAX_VALUE);
+            System.out.printf("%d entries, key %016x%n", book.count, key(pos));
+            for (int[] entry : book.moves(pos))
+            {
+                System.out.println(Move.san(pos, entry[0]) + "  " + entry[1]);
+            }
+        }
+        else
+        {
+            System.out.println("usage: java PolyglotBook build <games.txt> <book.bin> [plies] | probe <book.bin> [fen]");
+        }
+    }
+}
@@ -0,0 +1,668 @@
+// Squares are numbered row * 8 + col with row 0 being Black's back rank,
+// the same layout the Swing grid uses.
+class Position
+{
+    static final int WHITE = 0, BLACK = 1;
+    static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+    static final int EMPTY = -1;
+    static final int WHITE_KING = KING, BLACK_KING = 6 + KING;
+
+    static final int WHITE_KINGSIDE = 1, WHITE_QUEENSIDE = 2, BLACK_KINGSIDE = 4, BLACK_QUEENSIDE = 8;
+
+    static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    private static final int UNDO_CAPACITY = 1024;
+
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static
+    {
+        java.util.Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[60] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[63] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[7] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[0] &= ~BLACK_QUEENSIDE;
+    }
+
+    final long[] pieces = new long[12];
+    final long[] occupancy = new long[2];
+    long occupied;
+    final int[] squares = new int[64];
+    int sideToMove = WHITE;
+    int castlingRights;
+    int enPassantSquare = -1;
+    // Half-moves since the last capture or pawn move, and the move number, as in FEN.
+    int halfmoveClock;
+    int fullmoveNumber = 1;
+    final int[] kingSquare = {-1, -1};
+    long key;
+    // Zobrist key of the pawns alone, for the pawn-structure cache.
+    long pawnKey;
+    // Running middlegame and endgame evaluation totals per color and the game
+    // phase, kept by putPiece/removePiece.
+    final int[] middlegame = new int[2];
+    final int[] endgame = new int[2];
+    int phase;
+
+    // Undo records for makeMove/unmakeMove: the key before the move, and the captured
+    // piece, castling rights, en passant square and halfmove clock packed into one int.
+    private long[] undoKeys = new long[UNDO_CAPACITY];
+    private int[] undoStates = new int[UNDO_CAPACITY];
+    private int undoCount;
+
+    // Scratch list of running material balances for see.
+    private final int[] exchange = new int[32];
+
+    Position()
+    {
+        this(START_FEN);
+    }
+
+    Position(String fen)
+    {
+        java.util.Arrays.fill(squares, EMPTY);
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) throw new IllegalArgumentException("Incomplete FEN: " + fen);
+
+        // Eight ranks of exactly eight squares each.
+        int row = 0, col = 0;
+        for (char ch : fields[0].toCharArray())
+        {
+            if (ch == '/')
+            {
+                if (col != 8 || ++row > 7) throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                col = 0;
+            }
+            else if (ch >= '1' && ch <= '8')
+            {
+                col += ch - '0';
+                if (col > 8) throw new IllegalArgumentException("Bad FEN placement: " + fen);
+            }
+            else
+            {
+                int piece = PIECE_LETTERS.indexOf(ch);
+                if (piece < 0 || col > 7) throw new IllegalArgumentException("Bad FEN placement: " + fen);
+                if (typeOf(piece) == PAWN && (row == 0 || row == 7))
+                {
+                    throw new IllegalArgumentException("FEN has a pawn on the first or last rank: " + fen);
+                }
+                putPiece(row * 8 + col, piece);
+                col++;
+            }
+        }
+        if (row != 7 || col != 8) throw new IllegalArgumentException("Bad FEN placement: " + fen);
+
+        if (!fields[1].equals("w") && !fields[1].equals("b"))
+        {
+            throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        }
+        sideToMove = fields[1].equals("b") ? BLACK : WHITE;
+        for (char ch : fields[2].toCharArray())
+        {
+            switch (ch)
+            {
+                case 'K' -> castlingRights |= WHITE_KINGSIDE;
+                case 'Q' -> castlingRights |= WHITE_QUEENSIDE;
+                case 'k' -> castlingRights |= BLACK_KINGSIDE;
+                case 'q' -> castlingRights |= BLACK_QUEENSIDE;
+                default -> { }
+            }
+        }
+        // Rights whose king or rook has left its square can never be used, so they are dropped.
+        if (squares[60] != WHITE_KING || squares[63] != piece(WHITE, ROOK)) castlingRights &= ~WHITE_KINGSIDE;
+        if (squares[60] != WHITE_KING || squares[56] != piece(WHITE, ROOK)) castlingRights &= ~WHITE_QUEENSIDE;
+        if (squares[4] != BLACK_KING || squares[7] != piece(BLACK, ROOK)) castlingRights &= ~BLACK_KINGSIDE;
+        if (squares[4] != BLACK_KING || squares[0] != piece(BLACK, ROOK)) castlingRights &= ~BLACK_QUEENSIDE;
+
+        // Kept only behind a pawn that has just made a double push, as an en passant capture needs.
+        enPassantSquare = fields[3].equals("-") ? -1 : parseSquare(fields[3]);
+        if (enPassantSquare != -1)
+        {
+            int behind = sideToMove == WHITE ? 2 : 5;
+            int pushed = enPassantSquare + (sideToMove == WHITE ? 8 : -8);
+            int origin = enPassantSquare - (sideToMove == WHITE ? 8 : -8);
+            if (enPassantSquare >> 3 != behind || squares[pushed] != piece(sideToMove ^ 1, PAWN)
+                || squares[enPassantSquare] != EMPTY || squares[origin] != EMPTY)
+            {
+                enPassantSquare = -1;
+            }
+        }
+        if (fields.length > 4) halfmoveClock = Integer.parseInt(fields[4]);
+        if (fields.length > 5) fullmoveNumber = Integer.parseInt(fields[5]);
+        if (Long.bitCount(pieces[WHITE_KING]) != 1 || Long.bitCount(pieces[BLACK_KING]) != 1)
+        {
+            throw new IllegalArgumentException("FEN needs exactly one king per side: " + fen);
+        }
+        key = computeKey();
+    }
+
+    Position(Position other)
+    {
+        copyFrom(other);
+    }
+
+    // Copies the board state; the copy starts with an empty undo stack.
+    void copyFrom(Position other)
+    {
+        System.arraycopy(other.pieces, 0, pieces, 0, 12);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.squares, 0, squares, 0, 64);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        kingSquare[WHITE] = other.kingSquare[WHITE];
+        kingSquare[BLACK] = other.kingSquare[BLACK];
+        key = other.key;
+        pawnKey = other.pawnKey;
+        middlegame[WHITE] = other.middlegame[WHITE];
+        middlegame[BLACK] = other.middlegame[BLACK];
+        endgame[WHITE] = other.endgame[WHITE];
+        endgame[BLACK] = other.endgame[BLACK];
+        phase = other.phase;
+        undoCount = 0;
+    }
+
+    // Full FEN, including the move clocks.
+    String toFen()
+    {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 0; row < 8; row++)
+        {
+            int empty = 0;
+            for (int col = 0; col < 8; col++)
+            {
+                int p = squares[row * 8 + col];
+                if (p == EMPTY)
+                {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) fen.append(empty);
+                empty = 0;
+                fen.append(PIECE_LETTERS.charAt(p));
+            }
+            if (empty > 0) fen.append(empty);
+            if (row < 7) fen.append('/');
+        }
+        fen.append(sideToMove == WHITE ? " w " : " b ");
+        if (castlingRights == 0) fen.append('-');
+        if ((castlingRights & WHITE_KINGSIDE) != 0) fen.append('K');
+        if ((castlingRights & WHITE_QUEENSIDE) != 0) fen.append('Q');
+        if ((castlingRights & BLACK_KINGSIDE) != 0) fen.append('k');
+        if ((castlingRights & BLACK_QUEENSIDE) != 0) fen.append('q');
+        fen.append(' ').append(enPassantSquare == -1 ? "-" : squareName(enPassantSquare));
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
+    }
+
+    long computeKey()
+    {
+        long k = Zobrist.CASTLING[castlingRights];
+        for (int sq = 0; sq < 64; sq++)
+        {
+            if (squares[sq] != EMPTY) k ^= Zobrist.PIECES[squares[sq]][sq];
+        }
+        if (enPassantSquare != -1) k ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        if (sideToMove == BLACK) k ^= Zobrist.SIDE_TO_MOVE;
+        return k;
+    }
+
+    static int parseSquare(String name)
+    {
+        if (name.length() != 2) throw new IllegalArgumentException("Bad square: " + name);
+        int col = name.charAt(0) - 'a', row = '8' - name.charAt(1);
+        if (col < 0 || col > 7 || row < 0 || row > 7) throw new IllegalArgumentException("Bad square: " + name);
+        return row * 8 + col;
+    }
+
+    static String squareName(int sq)
+    {
+        return "" + (char) ('a' + (sq & 7)) + (char) ('8' - (sq >> 3));
+    }
+
+    static int piece(int color, int type)
+    {
+        return color * 6 + type;
+    }
+
+    static int colorOf(int piece)
+    {
+        return piece / 6;
+    }
+
+    static int typeOf(int piece)
+    {
+        return piece % 6;
+    }
+
+    private void putPiece(int sq, int piece)
+    {
+        long bit = 1L << sq;
+        pieces[piece] |= bit;
+        occupancy[colorOf(piece)] |= bit;
+        occupied |= bit;
+        squares[sq] = piece;
+        key ^= Zobrist.PIECES[piece][sq];
+        if (typeOf(piece) == PAWN) pawnKey ^= Zobrist.PIECES[piece][sq];
+        middlegame[colorOf(piece)] += Evaluation.MIDDLEGAME[piece * 64 + sq];
+        endgame[colorOf(piece)] += Evaluation.ENDGAME[piece * 64 + sq];
+        phase += Evaluation.PHASE_WEIGHTS[typeOf(piece)];
+        if (typeOf(piece) == KING) kingSquare[colorOf(piece)] = sq;
+    }
+
+    private void removePiece(int sq)
+    {
+        int piece = squares[sq];
+        long bit = ~(1L << sq);
+        pieces[piece] &= bit;
+        occupancy[colorOf(piece)] &= bit;
+        occupied &= bit;
+        squares[sq] = EMPTY;
+        key ^= Zobrist.PIECES[piece][sq];
+        if (typeOf(piece) == PAWN) pawnKey ^= Zobrist.PIECES[piece][sq];
+        middlegame[colorOf(piece)] -= Evaluation.MIDDLEGAME[piece * 64 + sq];
+        endgame[colorOf(piece)] -= Evaluation.ENDGAME[piece * 64 + sq];
+        phase -= Evaluation.PHASE_WEIGHTS[typeOf(piece)];
+    }
+
+    private void movePiece(int from, int to)
+    {
+        int piece = squares[from];
+        removePiece(from);
+        putPiece(to, piece);
+    }
+
+    long attacks(int sq, int piece)
+    {
+        return switch (typeOf(piece))
+        {
+            case PAWN -> Attacks.PAWN[colorOf(piece)][sq];
+            case KNIGHT -> Attacks.KNIGHT[sq];
+            case BISHOP -> Attacks.bishop(sq, occupied);
+            case ROOK -> Attacks.rook(sq, occupied);
+            case QUEEN -> Attacks.bishop(sq, occupied) | Attacks.rook(sq, occupied);
+            default -> Attacks.KING[sq];
+        };
+    }
+
+    // Looks outward from the target square for an attacker of the given color, so
+    // nothing is generated or allocated.
+    boolean isSquareAttacked(int sq, int byColor)
+    {
+        return isSquareAttacked(sq, byColor, occupied, -1L);
+    }
+
+    // Same test against a hypothetical occupancy, ignoring attackers outside the mask.
+    private boolean isSquareAttacked(int sq, int byColor, long occupied, long attackerMask)
+    {
+        int base = byColor * 6;
+        if ((Attacks.PAWN[byColor ^ 1][sq] & pieces[base + PAWN] & attackerMask) != 0) return true;
+        if ((Attacks.KNIGHT[sq] & pieces[base + KNIGHT] & attackerMask) != 0) return true;
+        if ((Attacks.KING[sq] & pieces[base + KING]) != 0) return true;
+
+        long straight = (pieces[base + ROOK] | pieces[base + QUEEN]) & attackerMask;
+        long diagonal = (pieces[base + BISHOP] | pieces[base + QUEEN]) & attackerMask;
+        for (int dir = 0; dir < 8; dir++)
+        {
+            long sliders = dir <= Attacks.WEST ? straight : diagonal;
+            long ray = Attacks.RAYS[dir][sq];
+            if ((ray & sliders) == 0) continue;
+            int blocker = Attacks.firstBlocker(dir, ray & occupied);
+            if ((sliders & (1L << blocker)) != 0) return true;
+        }
+        return false;
+    }
+
+    // Every piece of either color that attacks the square through the given occupancy.
+    long attackersTo(int sq, long occupied)
+    {
+        long straight = pieces[ROOK] | pieces[QUEEN] | pieces[6 + ROOK] | pieces[6 + QUEEN];
+        long diagonal = pieces[BISHOP] | pieces[QUEEN] | pieces[6 + BISHOP] | pieces[6 + QUEEN];
+        return (Attacks.PAWN[BLACK][sq] & pieces[PAWN]) | (Attacks.PAWN[WHITE][sq] & pieces[6 + PAWN])
+            | (Attacks.KNIGHT[sq] & (pieces[KNIGHT] | pieces[6 + KNIGHT]))
+            | (Attacks.KING[sq] & (pieces[KING] | pieces[6 + KING]))
+            | (Attacks.rook(sq, occupied) & straight)
+            | (Attacks.bishop(sq, occupied) & diagonal);
+    }
+
+    // Static exchange evaluation: the material the move wins, in centipawns, once all
+    // captures on its target square are played out. Each side takes back with its least
+    // valuable attacker and may stop when going on would lose. A slider lined up behind
+    // a piece that has taken joins in when that piece leaves. Pins are not considered.
+    int see(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        long occupied = this.occupied ^ (1L << from);
+        int promotion = Move.promotion(move);
+        int[] gain = exchange;
+        if ((move & Move.EN_PASSANT) != 0)
+        {
+            occupied ^= 1L << (to + (sideToMove == WHITE ? 8 : -8));
+            gain[0] = Evaluation.PIECE_VALUES[PAWN];
+        }
+        else
+        {
+            gain[0] = squares[to] == EMPTY ? 0 : Evaluation.PIECE_VALUES[typeOf(squares[to])];
+        }
+        if (promotion != 0) gain[0] += Evaluation.PIECE_VALUES[promotion] - Evaluation.PIECE_VALUES[PAWN];
+        // Value of the piece now standing on the target square.
+        int onSquare = Evaluation.PIECE_VALUES[promotion != 0 ? promotion : typeOf(squares[from])];
+
+        long straight = pieces[ROOK] | pieces[QUEEN] | pieces[6 + ROOK] | pieces[6 + QUEEN];
+        long diagonal = pieces[BISHOP] | pieces[QUEEN] | pieces[6 + BISHOP] | pieces[6 + QUEEN];
+        long attackers = attackersTo(to, occupied) & occupied;
+        int side = sideToMove ^ 1;
+        int depth = 0;
+        while (true)
+        {
+            long own = attackers & occupancy[side];
+            if (own == 0) break;
+            int type = PAWN;
+            while ((own & pieces[piece(side, type)]) == 0) type++;
+            // The king may only take last, on a square the other side no longer attacks.
+            if (type == KING && (attackers & occupancy[side ^ 1]) != 0) break;
+
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+            onSquare = Evaluation.PIECE_VALUES[type];
+            long bits = own & pieces[piece(side, type)];
+            occupied ^= bits & -bits;
+            if (type == PAWN || type == BISHOP || type == QUEEN) attackers |= Attacks.bishop(to, occupied) & diagonal;
+            if (type == ROOK || type == QUEEN) attackers |= Attacks.rook(to, occupied) & straight;
+            attackers &= occupied;
+            side ^= 1;
+        }
+        // Walk back up the sequence: each side only makes a capture that does not leave it worse off.
+        for (; depth > 0; depth--)
+        {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    boolean isInCheck(int color)
+    {
+        return isSquareAttacked(kingSquare[color], color ^ 1);
+    }
+
+    // Whether a pseudo-legal move keeps the mover's king safe, decided from the
+    // occupancy the move would leave behind rather than by playing it.
+    boolean isLegal(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        long toBit = 1L << to;
+        long occupiedAfter = (occupied ^ (1L << from)) | toBit;
+        long captured = toBit;
+        if ((move & Move.EN_PASSANT) != 0)
+        {
+            captured = 1L << (to + (sideToMove == WHITE ? 8 : -8));
+            occupiedAfter ^= captured;
+        }
+        int king = from == kingSquare[sideToMove] ? to : kingSquare[sideToMove];
+        return !isSquareAttacked(king, sideToMove ^ 1, occupiedAfter, ~captured);
+    }
+
+    // Writes the pseudo-legal moves for the side to move into moves[start..] and
+    // returns the index after the last one. Pieces move only to squares in targets;
+    // without quiets, pawns push only to promote (to a queen) and castling is skipped.
+    private int generatePseudoMoves(int[] moves, int start, long targets, boolean quiets)
+    {
+        int count = start;
+        int us = sideToMove;
+        long enemy = occupancy[us ^ 1];
+
+        int forward = us == WHITE ? -8 : 8;
+        int startRow = us == WHITE ? 6 : 1;
+        int promotionRow = us == WHITE ? 0 : 7;
+        long pawns = pieces[piece(us, PAWN)];
+        while (pawns != 0)
+        {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int to = from + forward;
+            if (squares[to] == EMPTY)
+            {
+                if (quiets)
+                {
+                    count = addPawnMove(moves, count, from, to, promotionRow, 0);
+                    if ((from >> 3) == startRow && squares[to + forward] == EMPTY)
+                    {
+                        moves[count++] = Move.of(from, to + forward, 0, Move.DOUBLE_PUSH);
+                    }
+                }
+                else if ((to >> 3) == promotionRow)
+                {
+                    moves[count++] = Move.of(from, to, QUEEN, 0);
+                }
+            }
+            long pawnTargets = Attacks.PAWN[us][from];
+            long captures = pawnTargets & enemy;
+            while (captures != 0)
+            {
+                count = addPawnMove(moves, count, from, Long.numberOfTrailingZeros(captures), promotionRow, Move.CAPTURE);
+                captures &= captures - 1;
+            }
+            if (enPassantSquare != -1 && (pawnTargets & (1L << enPassantSquare)) != 0)
+            {
+                moves[count++] = Move.of(from, enPassantSquare, 0, Move.EN_PASSANT);
+            }
+        }
+
+        for (int type = KNIGHT; type <= KING; type++)
+        {
+            int piece = piece(us, type);
+            long bb = pieces[piece];
+            while (bb != 0)
+            {
+                int from = Long.numberOfTrailingZeros(bb);
+                bb &= bb - 1;
+                long moveTargets = attacks(from, piece) & targets;
+                while (moveTargets != 0)
+                {
+                    int to = Long.numberOfTrailingZeros(moveTargets);
+                    moveTargets &= moveTargets - 1;
+                    moves[count++] = Move.of(from, to, 0, (enemy & (1L << to)) != 0 ? Move.CAPTURE : 0);
+                }
+            }
+        }
+
+        return quiets ? addCastlingMoves(moves, count) : count;
+    }
+
+    private static int addPawnMove(int[] moves, int count, int from, int to, int promotionRow, int flags)
+    {
+        if ((to >> 3) != promotionRow)
+        {
+            moves[count++] = Move.of(from, to, 0, flags);
+            return count;
+        }
+        for (int promotion = QUEEN; promotion >= KNIGHT; promotion--)
+        {
+            moves[count++] = Move.of(from, to, promotion, flags);
+        }
+        return count;
+    }
+
+    private int addCastlingMoves(int[] moves, int count)
+    {
+        int us = sideToMove;
+        int kingside = us == WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+        int queenside = us == WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0) return count;
+
+        int king = us == WHITE ? 60 : 4;
+        int them = us ^ 1;
+        if (isSquareAttacked(king, them)) return count;
+
+        if ((castlingRights & kingside) != 0
+            && squares[king + 1] == EMPTY && squares[king + 2] == EMPTY
+            && !isSquareAttacked(king + 1, them) && !isSquareAttacked(king + 2, them))
+        {
+            moves[count++] = Move.of(king, king + 2, 0, Move.CASTLING);
+        }
+        if ((castlingRights & queenside) != 0
+            && squares[king - 1] == EMPTY && squares[king - 2] == EMPTY && squares[king - 3] == EMPTY
+            && !isSquareAttacked(king - 1, them) && !isSquareAttacked(king - 2, them))
+        {
+            moves[count++] = Move.of(king, king - 2, 0, Move.CASTLING);
+        }
+        return count;
+    }
+
+    // Writes the legal moves into moves[start..] and returns the index after the last one.
+    int generateLegalMoves(int[] moves, int start)
+    {
+        return keepLegal(moves, start, generatePseudoMoves(moves, start, ~occupancy[sideToMove], true));
+    }
+
+    // The legal captures, en passant and queen promotions, written the same way: the
+    // moves the quiescence search looks at when not in check.
+    int generateLegalCaptures(int[] moves, int start)
+    {
+        return keepLegal(moves, start, generatePseudoMoves(moves, start, occupancy[sideToMove ^ 1], false));
+    }
+
+    // Packs the legal moves of moves[start..end) to the front and returns the new end.
+    private int keepLegal(int[] moves, int start, int end)
+    {
+        int count = start;
+        for (int i = start; i < end; i++)
+        {
+            if (isLegal(moves[i])) moves[count++] = moves[i];
+        }
+        return count;
+    }
+
+    // Convenience for callers off the search path.
+    int[] legalMoves()
+    {
+        int[] buffer = new int[Move.MAX_MOVES];
+        return java.util.Arrays.copyOf(buffer, generateLegalMoves(buffer, 0));
+    }
+
+    void makeMove(int move)
+    {
+        int from = Move.from(move), to = Move.to(move), promotion = Move.promotion(move);
+        int us = sideToMove;
+
+        int captured = (move & Move.CAPTURE) != 0 ? squares[to] : EMPTY;
+        pushUndo(captured);
+        boolean irreversible = captured != EMPTY || typeOf(squares[from]) == PAWN;
+
+        if (captured != EMPTY)
+        {
+            removePiece(to);
+        }
+        else if ((move & Move.EN_PASSANT) != 0)
+        {
+            removePiece(to + (us == WHITE ? 8 : -8));
+        }
+        movePiece(from, to);
+
+        if (promotion != 0)
+        {
+            removePiece(to);
+            putPiece(to, piece(us, promotion));
+        }
+        else if ((move & Move.CASTLING) != 0)
+        {
+            if (to > from) movePiece(from + 3, from + 1);
+            else movePiece(from - 4, from - 1);
+        }
+
+        if (enPassantSquare != -1) key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        enPassantSquare = (move & Move.DOUBLE_PUSH) != 0 ? (from + to) / 2 : -1;
+        if (enPassantSquare != -1) key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+
+        key ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        key ^= Zobrist.CASTLING[castlingRights];
+
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        if (us == BLACK) fullmoveNumber++;
+        sideToMove = us ^ 1;
+        key ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    // Saves what a move cannot recompute on the way back: the key, the captured piece,
+    // castling rights, en passant square and halfmove clock.
+    private void pushUndo(int captured)
+    {
+        if (undoCount == undoKeys.length)
+        {
+            undoKeys = java.util.Arrays.copyOf(undoKeys, undoCount * 2);
+            undoStates = java.util.Arrays.copyOf(undoStates, undoCount * 2);
+        }
+        undoKeys[undoCount] = key;
+        undoStates[undoCount++] = (captured + 1) | castlingRights << 4 | (enPassantSquare + 1) << 8
+            | Math.min(halfmoveClock, Short.MAX_VALUE) << 16;
+    }
+
+    // Passes the turn without moving. Only the search does this, to see whether a
+    // position is still good when the opponent gets a free move.
+    void makeNullMove()
+    {
+        pushUndo(EMPTY);
+        if (enPassantSquare != -1) key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        enPassantSquare = -1;
+        sideToMove ^= 1;
+        key ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    void unmakeNullMove()
+    {
+        int state = undoStates[--undoCount];
+        enPassantSquare = ((state >> 8) & 127) - 1;
+        sideToMove ^= 1;
+        key = undoKeys[undoCount];
+    }
+
+    // Knights, bishops, rooks or queens; without them zugzwang is common and passing is no test.
+    boolean hasPieces(int color)
+    {
+        return (occupancy[color] & ~pieces[piece(color, PAWN)] & ~pieces[piece(color, KING)]) != 0;
+    }
+
+    // Takes back the last move made, which must be the one passed in.
+    void unmakeMove(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        int us = sideToMove ^ 1;
+        int state = undoStates[--undoCount];
+
+        if (Move.promotion(move) != 0)
+        {
+            removePiece(to);
+            putPiece(to, piece(us, PAWN));
+        }
+        else if ((move & Move.CASTLING) != 0)
+        {
+            if (to > from) movePiece(from + 1, from + 3);
+            else movePiece(from - 1, from - 4);
+        }
+        movePiece(to, from);
+
+        int captured = (state & 15) - 1;
+        if (captured != EMPTY)
+        {
+            putPiece(to, captured);
+        }
+        else if ((move & Move.EN_PASSANT) != 0)
+        {
+            putPiece(to + (us == WHITE ? 8 : -8), piece(us ^ 1, PAWN));
+        }
+
+        castlingRights = (state >> 4) & 15;
+        enPassantSquare = ((state >> 8) & 127) - 1;
+        halfmoveClock = state >>> 16;
+        if (us == BLACK) fullmoveNumber--;
+        sideToMove = us;
+        key = undoKeys[undoCount];
+    }
+}
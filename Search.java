@@ -0,0 +1,611 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Iterative deepening alpha-beta over a Position. One instance searches one
+// position at a time on one thread. Searches sharing a stop flag and a
+// transposition table can run side by side (see ParallelSearch); the owner of
+// the flag clears it before starting them and bumps the table generation.
+//
+// The search makes and unmakes moves on a single Position; move lists and move
+// pickers are preallocated per ply, so nothing below the root allocates.
+final class Search
+{
+    static final int INFINITY = 10_000_000;
+    static final int MATE = 1_000_000;
+    // Scores beyond this are mates; the distance to mate is MATE minus the score, in plies.
+    static final int MATE_BOUND = MATE - 1000;
+
+    private static final int MAX_PLY = 128;
+    private static final int MAX_QUIESCENCE_DEPTH = 12;
+    private static final int DELTA_MARGIN = 200;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    // Root window half-width in centipawns, doubled on every miss until it is dropped.
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MAX = 1000;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    // Null-move pruning: the free move is searched this many plies shallower, one more at greater depths.
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    // Late move reductions apply to quiet moves after this many have been searched at a node.
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int[][] LMR_REDUCTION = new int[SearchLimits.MAX_DEPTH + 1][Move.MAX_MOVES];
+
+    static
+    {
+        for (int depth = 1; depth <= SearchLimits.MAX_DEPTH; depth++)
+        {
+            for (int moveNumber = 1; moveNumber < Move.MAX_MOVES; moveNumber++)
+            {
+                LMR_REDUCTION[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    // A won king and pawn ending scores this plus the pawn's progress: clearly winning,
+    // but still less than the queen it turns into, so the search goes on to promote.
+    private static final int KPK_WIN = 500;
+
+    // Pawn-structure cache per thread; a megabyte holds far more structures than one search meets.
+    private static final int PAWN_TABLE_MB = 1;
+
+    private final TranspositionTable table;
+    private final PawnTable pawns = new PawnTable(PAWN_TABLE_MB);
+    private final Random random = new Random();
+
+    private final AtomicBoolean stop;
+    private final int id;
+    // Both can be changed by limitTime while the search runs.
+    private volatile long deadline;
+    private volatile long budgetMillis;
+    private long nodeLimit;
+    private volatile long startTime;
+
+    private final Position pos = new Position();
+    private final int[] moves = new int[(MAX_PLY + 1) * Move.MAX_MOVES];
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final int[] rootMoves = new int[Move.MAX_MOVES];
+    private final int[] noise = new int[Move.MAX_MOVES];
+
+    // Triangular principal variation table: row ply holds the line from that ply on,
+    // pvLength[ply] is where it ends. pv is the root line of the last finished iteration.
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] pv = new int[MAX_PLY + 1];
+    private int pvSize;
+    private int rootBestIndex;
+
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[12][64];
+
+    final SearchStats stats = new SearchStats();
+    int completedDepth;
+    int bestScore;
+
+    // Told about every completed iteration, on the searching thread; see principalVariation.
+    Consumer<Search> listener;
+
+    Search(TranspositionTable table, AtomicBoolean stop, int id)
+    {
+        this.table = table;
+        this.stop = stop;
+        this.id = id;
+        for (int ply = 0; ply <= MAX_PLY; ply++)
+        {
+            pickers[ply] = new MovePicker(history);
+        }
+    }
+
+    void stop()
+    {
+        stop.set(true);
+    }
+
+    // Gives a running search a time budget counted from its start, as when the
+    // move it was pondering on is played. A budget already used up stops it at once.
+    void limitTime(long millis)
+    {
+        budgetMillis = millis;
+        deadline = startTime + millis;
+    }
+
+    long elapsedMillis()
+    {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    // Deepens one ply at a time until the limits run out. A partly searched
+    // iteration is thrown away in favour of the last completed one.
+    // Returns Move.NONE when the root has no legal move.
+    int bestMove(Position root, SearchLimits limits)
+    {
+        stats.reset();
+        pawns.probes = pawns.hits = 0;
+        completedDepth = 0;
+        bestScore = 0;
+        pvSize = 0;
+        startTime = System.currentTimeMillis();
+        budgetMillis = limits.millis;
+        deadline = limits.millis > 0 ? startTime + limits.millis : Long.MAX_VALUE;
+        nodeLimit = limits.nodes > 0 ? limits.nodes : Long.MAX_VALUE;
+        prepareHeuristics();
+
+        pos.copyFrom(root);
+        int rootCount = orderRootMoves();
+        if (rootCount == 0) return Move.NONE;
+        for (int i = 0; i < rootCount; i++)
+        {
+            noise[i] = limits.variety == 0 ? 0 : random.nextInt(limits.variety + 1);
+        }
+        int best = rootMoves[0];
+        // The best root score including its move's noise, the centre of the aspiration window.
+        int rootScore = 0;
+
+        // Odd helpers start a ply deeper so the threads spread over different depths.
+        for (int depth = 1 + (id & 1); depth <= limits.depth; depth++)
+        {
+            IterationEvent event = new IterationEvent();
+            event.begin();
+            long iterationStart = System.currentTimeMillis(), nodesBefore = stats.nodes;
+
+            // Aspiration: expect a score near the last one and widen the window on each miss.
+            int delta = ASPIRATION_WINDOW;
+            int alpha = -INFINITY, beta = INFINITY;
+            if (depth >= ASPIRATION_MIN_DEPTH && Math.abs(rootScore) < MATE_BOUND)
+            {
+                alpha = rootScore - delta;
+                beta = rootScore + delta;
+            }
+            int score;
+            while (true)
+            {
+                score = searchRoot(depth, alpha, beta, rootCount);
+                if (stop.get()) break;
+                if (score <= alpha) alpha = Math.max(score - delta, -INFINITY);
+                else if (score >= beta) beta = Math.min(score + delta, INFINITY);
+                else break;
+                stats.aspirationMisses++;
+                delta *= 2;
+                if (delta > ASPIRATION_MAX)
+                {
+                    alpha = -INFINITY;
+                    beta = INFINITY;
+                }
+            }
+            if (stop.get()) break;
+
+            best = rootMoves[rootBestIndex];
+            rootScore = score;
+            // Reported without the noise, which only serves to pick among near-equal moves.
+            bestScore = Math.abs(score) < MATE_BOUND ? score - noise[rootBestIndex] : score;
+            completedDepth = depth;
+            pvSize = pvLength[0];
+            System.arraycopy(pvTable[0], 0, pv, 0, pvSize);
+            moveToFront(rootBestIndex);
+            stats.depthNodes[depth] = stats.nodes - nodesBefore;
+            stats.depthMillis[depth] = System.currentTimeMillis() - iterationStart;
+            if (event.shouldCommit())
+            {
+                event.thread = id;
+                event.depth = depth;
+                event.score = bestScore;
+                event.nodes = stats.depthNodes[depth];
+                event.bestMove = Move.name(best);
+                event.commit();
+            }
+            if (listener != null) listener.accept(this);
+
+            if (Math.abs(bestScore) >= MATE_BOUND) break;
+            // The next iteration costs several times this one, so don't start what can't finish.
+            if (budgetMillis > 0 && elapsedMillis() * 2 > budgetMillis) break;
+        }
+        stats.completedDepth = completedDepth;
+        stats.score = bestScore;
+        stats.millis = elapsedMillis();
+        stats.pawnProbes = pawns.probes;
+        stats.pawnHits = pawns.hits;
+        return best;
+    }
+
+    // Principal variation search over the root moves, in their current order. Each
+    // move's noise is added to its score, so the window is shifted by it for the child.
+    // Leaves the index of the best move in rootBestIndex.
+    private int searchRoot(int depth, int alpha, int beta, int rootCount)
+    {
+        pvLength[0] = 0;
+        int best = -INFINITY;
+        rootBestIndex = 0;
+        for (int i = 0; i < rootCount; i++)
+        {
+            int move = rootMoves[i], n = noise[i];
+            pos.makeMove(move);
+            int score;
+            if (i == 0)
+            {
+                score = -alphaBeta(1, depth - 1, -(beta - n), -(alpha - n), true);
+            }
+            else
+            {
+                score = -alphaBeta(1, depth - 1, -(alpha - n) - 1, -(alpha - n), true);
+                if (score > alpha - n && score < beta - n)
+                {
+                    stats.reSearches++;
+                    score = -alphaBeta(1, depth - 1, -(beta - n), -(alpha - n), true);
+                }
+            }
+            pos.unmakeMove(move);
+            if (stop.get()) return best;
+            if (Math.abs(score) < MATE_BOUND) score += n;
+
+            if (score > best)
+            {
+                best = score;
+                rootBestIndex = i;
+                updatePv(0, move);
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    // The line this node expects: the move just found, then the child's line.
+    private void updatePv(int ply, int move)
+    {
+        int[] line = pvTable[ply], childLine = pvTable[ply + 1];
+        line[ply] = move;
+        int length = pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++)
+        {
+            line[i] = childLine[i];
+        }
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    // The expected line from the root: the principal variation of the last completed
+    // iteration, carried on from the transposition table where it was cut short.
+    // Only valid between iterations, while the search position is back at the root.
+    int principalVariation(int[] line)
+    {
+        int length = 0;
+        long[] seen = new long[line.length];
+        int move = pvSize > 0 ? pv[0] : rootMoves[0];
+        while (move != Move.NONE && length < line.length)
+        {
+            seen[length] = pos.key;
+            line[length++] = move;
+            pos.makeMove(move);
+            move = length < pvSize ? pv[length] : tableMove(seen, length);
+        }
+        for (int i = length - 1; i >= 0; i--)
+        {
+            pos.unmakeMove(line[i]);
+        }
+        return length;
+    }
+
+    // The stored move for the current position if it is legal here and does not repeat an earlier position.
+    private int tableMove(long[] seen, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (seen[i] == pos.key) return Move.NONE;
+        }
+        long entry = table.probe(pos.key);
+        int stored = TranspositionTable.move(entry);
+        if (entry == 0 || stored == Move.NONE) return Move.NONE;
+
+        int start = MAX_PLY * Move.MAX_MOVES;
+        int end = pos.generateLegalMoves(moves, start);
+        for (int i = start; i < end; i++)
+        {
+            if ((moves[i] & Move.KEY_MASK) == stored) return moves[i];
+        }
+        return Move.NONE;
+    }
+
+    private void moveToFront(int index)
+    {
+        int move = rootMoves[index];
+        int n = noise[index];
+        System.arraycopy(rootMoves, 0, rootMoves, 1, index);
+        System.arraycopy(noise, 0, noise, 1, index);
+        rootMoves[0] = move;
+        noise[0] = n;
+    }
+
+    private int orderRootMoves()
+    {
+        int end = pos.generateLegalMoves(moves, 0);
+        MovePicker picker = pickers[0];
+        picker.init(pos, moves, 0, end, TranspositionTable.move(table.probe(pos.key)), killers[0]);
+        int count = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next())
+        {
+            rootMoves[count++] = move;
+        }
+        return count;
+    }
+
+    // Forgets the move-ordering history, so the next search owes nothing to earlier ones.
+    void clearHistory()
+    {
+        for (int[] squares : history)
+        {
+            java.util.Arrays.fill(squares, 0);
+        }
+    }
+
+    private void prepareHeuristics()
+    {
+        for (int[] slots : killers)
+        {
+            slots[0] = slots[1] = Move.NONE;
+        }
+        for (int[] squares : history)
+        {
+            for (int sq = 0; sq < 64; sq++)
+            {
+                squares[sq] /= 2;
+            }
+        }
+    }
+
+    private void recordCutoff(int move, int ply, int depth)
+    {
+        if (Move.isTactical(move)) return;
+        if (killers[ply][0] != move)
+        {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] counters = history[pos.squares[Move.from(move)]];
+        counters[Move.to(move)] += depth * depth;
+        if (counters[Move.to(move)] > HISTORY_LIMIT)
+        {
+            for (int[] squares : history)
+            {
+                for (int sq = 0; sq < 64; sq++)
+                {
+                    squares[sq] /= 2;
+                }
+            }
+        }
+    }
+
+    private boolean outOfBudget()
+    {
+        if (stats.nodes >= nodeLimit) return true;
+        return (stats.nodes & 1023) == 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    // Negamax: scores are from the point of view of the side to move.
+    // allowNull is false right after a null move, so two passes never follow each other.
+    private int alphaBeta(int ply, int depth, int alpha, int beta, boolean allowNull)
+    {
+        // Horizon nodes are counted by quiescence.
+        if (depth == 0 || ply >= MAX_PLY - 1) return quiescence(ply, alpha, beta, 0);
+        pvLength[ply] = ply;
+        stats.nodes++;
+        if (outOfBudget()) stop.set(true);
+        if (stop.get()) return 0;
+
+        if (ply > 0 && isKingPawnKing()) return kingPawnKingScore();
+
+        int originalAlpha = alpha;
+        long entry = table.probe(pos.key);
+        stats.ttProbes++;
+        if (entry != 0) stats.ttHits++;
+        if (entry != 0 && TranspositionTable.depth(entry) >= depth)
+        {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha))
+            {
+                return score;
+            }
+        }
+
+        // No legal move: mate, scored so that a quicker mate is worth more, or stalemate.
+        int start = ply * Move.MAX_MOVES;
+        int end = pos.generateLegalMoves(moves, start);
+        boolean inCheck = pos.isInCheck(pos.sideToMove);
+        if (end == start) return inCheck ? -MATE + ply : 0;
+
+        // If passing still holds beta, a real move will too (zugzwang aside, hence hasPieces).
+        if (allowNull && !inCheck && depth >= NULL_MOVE_MIN_DEPTH && Math.abs(beta) < MATE_BOUND
+            && pos.hasPieces(pos.sideToMove) && staticEval() >= beta)
+        {
+            int reduction = NULL_MOVE_REDUCTION + (depth >= 7 ? 1 : 0);
+            pos.makeNullMove();
+            int score = -alphaBeta(ply + 1, Math.max(0, depth - 1 - reduction), -beta, -beta + 1, false);
+            pos.unmakeNullMove();
+            if (stop.get()) return 0;
+            if (score >= beta)
+            {
+                stats.nullMoveCutoffs++;
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int searched = 0;
+        MovePicker picker = pickers[ply];
+        picker.init(pos, moves, start, end, TranspositionTable.move(entry), killers[ply]);
+        for (int m = picker.next(); m != Move.NONE; m = picker.next())
+        {
+            pos.makeMove(m);
+            searched++;
+            int score;
+            if (searched == 1)
+            {
+                score = -alphaBeta(ply + 1, depth - 1, -beta, -alpha, true);
+            }
+            else
+            {
+                // Later moves only have to be shown no better than alpha, which a null
+                // window does cheaply. Quiet moves late in the ordering are also searched
+                // shallower; whatever beats alpha gets the full depth and window it skipped.
+                int reduction = 0;
+                if (searched > LMR_MIN_MOVES && depth >= LMR_MIN_DEPTH && !inCheck && !Move.isTactical(m)
+                    && m != killers[ply][0] && m != killers[ply][1] && !pos.isInCheck(pos.sideToMove))
+                {
+                    reduction = Math.min(LMR_REDUCTION[Math.min(depth, SearchLimits.MAX_DEPTH)][searched], depth - 2);
+                    stats.reductions++;
+                }
+                score = -alphaBeta(ply + 1, depth - 1 - reduction, -alpha - 1, -alpha, true);
+                if (score > alpha && reduction > 0)
+                {
+                    stats.reSearches++;
+                    score = -alphaBeta(ply + 1, depth - 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta)
+                {
+                    stats.reSearches++;
+                    score = -alphaBeta(ply + 1, depth - 1, -beta, -alpha, true);
+                }
+            }
+            pos.unmakeMove(m);
+            if (stop.get()) return 0;
+            if (score > best)
+            {
+                best = score;
+                bestMove = m;
+                if (score > alpha) updatePv(ply, m);
+            }
+
+            alpha = Math.max(alpha, best);
+            if (beta <= alpha)
+            {
+                stats.cutoffs++;
+                if (searched == 1) stats.firstMoveCutoffs++;
+                recordCutoff(m, ply, depth);
+                break;
+            }
+        }
+
+        int bound = best <= originalAlpha ? TranspositionTable.UPPER
+            : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(pos.key, depth, bound, toTable(best, ply), bestMove & Move.KEY_MASK);
+        return best;
+    }
+
+    // The table holds mate scores as distance from the stored node rather than from the root.
+    private static int toTable(int score, int ply)
+    {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply)
+    {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    // Every static evaluation goes through here so stats.evaluations counts them all.
+    private int staticEval()
+    {
+        stats.evaluations++;
+        return Evaluation.evaluate(pos, pawns);
+    }
+
+    // Resolves captures (and check evasions) at the leaves so the static evaluation
+    // is never taken in the middle of an exchange.
+    private int quiescence(int ply, int alpha, int beta, int qdepth)
+    {
+        pvLength[ply] = ply;
+        stats.nodes++;
+        stats.quiescenceNodes++;
+        if (outOfBudget()) stop.set(true);
+        if (stop.get()) return 0;
+
+        if (isKingPawnKing()) return kingPawnKingScore();
+
+        // In check every evasion is searched; otherwise only the tactical moves, and
+        // only once standing pat has failed to cut off.
+        boolean inCheck = pos.isInCheck(pos.sideToMove);
+        int start = ply * Move.MAX_MOVES;
+        int end = start;
+        if (inCheck)
+        {
+            end = pos.generateLegalMoves(moves, start);
+            if (end == start) return -MATE + ply;
+        }
+
+        int standPat = staticEval();
+        if (!inCheck)
+        {
+            if (standPat >= beta) return standPat;
+            alpha = Math.max(alpha, standPat);
+        }
+        if (qdepth >= MAX_QUIESCENCE_DEPTH || ply >= MAX_PLY - 1) return inCheck ? alpha : standPat;
+        if (!inCheck) end = pos.generateLegalCaptures(moves, start);
+
+        int best = inCheck ? -INFINITY : standPat;
+        MovePicker picker = pickers[ply];
+        picker.init(pos, moves, start, end, Move.NONE, killers[ply]);
+        for (int m = picker.next(); m != Move.NONE; m = picker.next())
+        {
+            if (!inCheck)
+            {
+                // Delta pruning: even winning this piece outright cannot lift the score to alpha.
+                int victim = capturedType(m);
+                int gain = (victim < 0 ? 0 : Evaluation.PIECE_VALUES[victim]) + (Move.promotion(m) == 0 ? 0
+                    : Evaluation.PIECE_VALUES[Move.promotion(m)] - Evaluation.PIECE_VALUES[Position.PAWN]);
+                if (standPat + gain + DELTA_MARGIN <= alpha) continue;
+                // A capture that loses material by static exchange cannot raise a stand-pat score.
+                if (picker.isLosingCapture())
+                {
+                    stats.losingCapturesPruned++;
+                    continue;
+                }
+            }
+
+            pos.makeMove(m);
+            int score = -quiescence(ply + 1, -beta, -alpha, qdepth + 1);
+            pos.unmakeMove(m);
+            if (stop.get()) return 0;
+
+            if (score > best)
+            {
+                best = score;
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    private boolean isKingPawnKing()
+    {
+        return Long.bitCount(pos.occupied) == 3
+            && (pos.pieces[Position.piece(Position.WHITE, Position.PAWN)] | pos.pieces[Position.piece(Position.BLACK, Position.PAWN)]) != 0;
+    }
+
+    // Exact result from the bitbase, scored for the side to move.
+    private int kingPawnKingScore()
+    {
+        if (!KpkBitbase.isWin(pos)) return 0;
+        long whitePawn = pos.pieces[Position.piece(Position.WHITE, Position.PAWN)];
+        int strong = whitePawn != 0 ? Position.WHITE : Position.BLACK;
+        int pawn = Long.numberOfTrailingZeros(whitePawn | pos.pieces[Position.piece(Position.BLACK, Position.PAWN)]);
+        int advance = strong == Position.WHITE ? 7 - (pawn >> 3) : pawn >> 3;
+        int score = KPK_WIN + 20 * advance;
+        return pos.sideToMove == strong ? score : -score;
+    }
+
+    private int capturedType(int move)
+    {
+        if ((move & Move.EN_PASSANT) != 0) return Position.PAWN;
+        if ((move & Move.CAPTURE) != 0) return Position.typeOf(pos.squares[Move.to(move)]);
+        return -1;
+    }
+}
@@ -0,0 +1,59 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+// Flight Recorder event for one move's search, with the counters of every thread added up.
+//   java -XX:StartFlightRecording:filename=chess.jfr Chess
+//   jfr print --events chess.Search chess.jfr
+@Name("chess.Search")
+@Label("Search")
+@Category({"Chess", "Search"})
+@Description("One search for a move, counters merged over all threads")
+final class SearchEvent extends jdk.jfr.Event
+{
+    @Label("Best Move")
+    String bestMove;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    int score;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+
+    @Label("Quiescence Nodes")
+    long quiescenceNodes;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Beta Cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoff Rate")
+    @Percentage
+    double firstMoveCutoffRate;
+
+    @Label("TT Probes")
+    long ttProbes;
+
+    @Label("TT Hits")
+    long ttHits;
+
+    @Label("Pawn Hash Hit Rate")
+    @Percentage
+    double pawnHitRate;
+
+    @Label("Branching Factor")
+    double branchingFactor;
+}
@@ -0,0 +1,45 @@
+// How long a search may run. A zero time or node budget means no limit of that kind.
+final class SearchLimits
+{
+    static final int MAX_DEPTH = 64;
+
+    final int depth;
+    final long millis;
+    final long nodes;
+    // Root scores get up to this much random noise in centipawns, so a game against
+    // the computer does not always go the same way. Zero keeps searches repeatable.
+    final int variety;
+
+    SearchLimits(int depth, long millis, long nodes)
+    {
+        this(depth, millis, nodes, 0);
+    }
+
+    SearchLimits(int depth, long millis, long nodes, int variety)
+    {
+        this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+        this.millis = millis;
+        this.nodes = nodes;
+        this.variety = Math.max(0, variety);
+    }
+
+    SearchLimits withVariety(int centipawns)
+    {
+        return new SearchLimits(depth, millis, nodes, centipawns);
+    }
+
+    static SearchLimits depth(int depth)
+    {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    static SearchLimits time(long millis)
+    {
+        return new SearchLimits(MAX_DEPTH, millis, 0);
+    }
+
+    static SearchLimits nodes(long nodes)
+    {
+        return new SearchLimits(MAX_DEPTH, 0, nodes);
+    }
+}
@@ -0,0 +1,133 @@
+// Counters for one search. Each Search thread owns one and bumps plain fields,
+// so counting costs no synchronisation; ParallelSearch merges them when the
+// search is over.
+final class SearchStats
+{
+    long nodes;
+    long quiescenceNodes;
+    long evaluations;
+    long ttProbes;
+    long ttHits;
+    long cutoffs;
+    long firstMoveCutoffs;
+    long nullMoveCutoffs;
+    long reductions;
+    long reSearches;
+    long aspirationMisses;
+    long losingCapturesPruned;
+    long pawnProbes;
+    long pawnHits;
+
+    // Nodes and milliseconds spent on each iteration of the deepening loop.
+    final long[] depthNodes = new long[SearchLimits.MAX_DEPTH + 1];
+    final long[] depthMillis = new long[SearchLimits.MAX_DEPTH + 1];
+
+    int completedDepth;
+    int score;
+    long millis;
+    int threads = 1;
+
+    void reset()
+    {
+        nodes = quiescenceNodes = evaluations = ttProbes = ttHits = cutoffs = firstMoveCutoffs = 0;
+        nullMoveCutoffs = reductions = reSearches = aspirationMisses = losingCapturesPruned = pawnProbes = pawnHits = 0;
+        java.util.Arrays.fill(depthNodes, 0);
+        java.util.Arrays.fill(depthMillis, 0);
+        completedDepth = score = 0;
+        millis = 0;
+        threads = 1;
+    }
+
+    // Counters from several threads added up; depth, score and time are the first one's.
+    static SearchStats merge(SearchStats... parts)
+    {
+        SearchStats total = new SearchStats();
+        total.completedDepth = parts[0].completedDepth;
+        total.score = parts[0].score;
+        total.millis = parts[0].millis;
+        total.threads = parts.length;
+        for (SearchStats part : parts)
+        {
+            total.nodes += part.nodes;
+            total.quiescenceNodes += part.quiescenceNodes;
+            total.evaluations += part.evaluations;
+            total.ttProbes += part.ttProbes;
+            total.ttHits += part.ttHits;
+            total.cutoffs += part.cutoffs;
+            total.firstMoveCutoffs += part.firstMoveCutoffs;
+            total.nullMoveCutoffs += part.nullMoveCutoffs;
+            total.reductions += part.reductions;
+            total.reSearches += part.reSearches;
+            total.aspirationMisses += part.aspirationMisses;
+            total.losingCapturesPruned += part.losingCapturesPruned;
+            total.pawnProbes += part.pawnProbes;
+            total.pawnHits += part.pawnHits;
+            for (int depth = 0; depth <= SearchLimits.MAX_DEPTH; depth++)
+            {
+                total.depthNodes[depth] += part.depthNodes[depth];
+            }
+        }
+        System.arraycopy(parts[0].depthMillis, 0, total.depthMillis, 0, total.depthMillis.length);
+        return total;
+    }
+
+    double firstMoveCutoffRate()
+    {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    double ttHitRate()
+    {
+        return ttProbes == 0 ? 0 : (double) ttHits / ttProbes;
+    }
+
+    double pawnHitRate()
+    {
+        return pawnProbes == 0 ? 0 : (double) pawnHits / pawnProbes;
+    }
+
+    long nodesPerSecond()
+    {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    // How many times more nodes the last iteration took than the one before it.
+    double branchingFactor()
+    {
+        int depth = completedDepth;
+        return depth < 2 || depthNodes[depth - 1] == 0 ? 0 : (double) depthNodes[depth] / depthNodes[depth - 1];
+    }
+
+    // One line of key=value pairs, for logs that are read by scripts.
+    String logLine()
+    {
+        StringBuilder line = new StringBuilder();
+        line.append("search depth=").append(completedDepth)
+            .append(" score=").append(score)
+            .append(" ms=").append(millis)
+            .append(" threads=").append(threads)
+            .append(" nodes=").append(nodes)
+            .append(" nps=").append(nodesPerSecond())
+            .append(" qnodes=").append(quiescenceNodes)
+            .append(" evals=").append(evaluations)
+            .append(" cutoffs=").append(cutoffs)
+            .append(String.format(" first_move_cutoff=%.3f", firstMoveCutoffRate()))
+            .append(" null_cutoffs=").append(nullMoveCutoffs)
+            .append(" reductions=").append(reductions)
+            .append(" re_searches=").append(reSearches)
+            .append(" aspiration_misses=").append(aspirationMisses)
+            .append(" see_pruned=").append(losingCapturesPruned)
+            .append(" tt_probes=").append(ttProbes)
+            .append(" tt_hits=").append(ttHits)
+            .append(" pawn_probes=").append(pawnProbes)
+            .append(String.format(" pawn_hit_rate=%.3f", pawnHitRate()))
+            .append(String.format(" ebf=%.2f", branchingFactor()))
+            .append(" depth_ms=");
+        for (int depth = 1; depth <= completedDepth; depth++)
+        {
+            if (depth > 1) line.append(',');
+            line.append(depthMillis[depth]);
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless engine-vs-engine matches. Every game runs on its own virtual thread
+// with its own positions, searches and tables; a semaphore keeps as many games
+// searching at once as there are cores. Virtual threads need Java 21; on older
+// runtimes the games run on a pool of platform threads instead.
+//   java Tournament [-games N] [-nodes N | -time ms] [-nodes2 N | -time2 ms]
+//                   [-openings file] [-concurrency N] [-hash MB] [-variety cp]
+// The second limit, if given, applies to the second player, so a change in budget
+// can be measured; results are from the first player's point of view. Each opening
+// is played twice with the colors swapped. Root scores get up to -variety
+// centipawns of noise (default 10) so that repeated openings give new games.
+class Tournament
+{
+    // Short lines from the start position, in SAN.
+    private static final String[] OPENINGS = {
+        "e4 e5 Nf3 Nc6 Bb5 a6",
+        "e4 e5 Nf3 Nc6 Bc4 Bc5",
+        "e4 c5 Nf3 d6 d4 cxd4 Nxd4 Nf6",
+        "e4 e6 d4 d5 Nc3 Nf6",
+        "e4 c6 d4 d5 e5 Bf5",
+        "d4 d5 c4 e6 Nc3 Nf6",
+        "d4 Nf6 c4 e6 Nc3 Bb4",
+        "d4 Nf6 c4 g6 Nc3 Bg7 e4 d6",
+        "c4 e5 Nc3 Nf6 g3 d5",
+        "Nf3 d5 g3 Nf6 Bg2 c6",
+    };
+
+    // Games that reach this many plies are scored as draws.
+    private static final int MAX_PLIES = 400;
+
+    private final SearchLimits[] limits;
+    private final int hashMb;
+
+    private final AtomicLong wins = new AtomicLong();
+    private final AtomicLong draws = new AtomicLong();
+    private final AtomicLong losses = new AtomicLong();
+    private final AtomicLong nodes = new AtomicLong();
+
+    Tournament(SearchLimits first, SearchLimits second, int hashMb)
+    {
+        limits = new SearchLimits[] {first, second};
+        this.hashMb = hashMb;
+    }
+
+    // One engine in one game: a search with its own table and stop flag.
+    private final class Player
+    {
+        final TranspositionTable table = new TranspositionTable(hashMb);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Search search = new Search(table, stop, 0);
+        final SearchLimits limits;
+
+        Player(SearchLimits limits)
+        {
+            this.limits = limits;
+        }
+
+        int move(Position pos)
+        {
+            stop.set(false);
+            table.newSearch();
+            int move = search.bestMove(pos, limits);
+            nodes.addAndGet(search.stats.nodes);
+            return move;
+        }
+    }
+
+    // Plays one game and returns the first player's score: 1, 0.5 or 0.
+    private double play(Position opening, boolean firstIsWhite, StringBuilder reason)
+    {
+        Player first = new Player(limits[0]), second = new Player(limits[1]);
+        Position pos = new Position(opening);
+        List<Long> keys = new ArrayList<>();
+        keys.add(pos.key);
+
+        for (int ply = 0; ; ply++)
+        {
+            if (pos.legalMoves().length == 0)
+            {
+                if (!pos.isInCheck(pos.sideToMove))
+                {
+                    reason.append("stalemate");
+                    return 0.5;
+                }
+                reason.append("mate");
+                boolean whiteWon = pos.sideToMove == Position.BLACK;
+                return whiteWon == firstIsWhite ? 1 : 0;
+            }
+            if (pos.halfmoveClock >= 100)
+            {
+                reason.append("fifty moves");
+                return 0.5;
+            }
+            if (repetitions(keys, pos.halfmoveClock) >= 3)
+            {
+                reason.append("repetition");
+                return 0.5;
+            }
+            if (insufficientMaterial(pos))
+            {
+                reason.append("insufficient material");
+                return 0.5;
+            }
+            if (ply >= MAX_PLIES)
+            {
+                reason.append("move limit");
+                return 0.5;
+            }
+
+            boolean whiteToMove = pos.sideToMove == Position.WHITE;
+            Player mover = whiteToMove == firstIsWhite ? first : second;
+            pos.makeMove(mover.move(pos));
+            keys.add(pos.key);
+        }
+    }
+
+    // How often the current position has occurred since the last irreversible move.
+    private static int repetitions(List<Long> keys, int halfmoveClock)
+    {
+        long current = keys.get(keys.size() - 1);
+        int count = 0;
+        for (int i = keys.size() - 1; i >= Math.max(0, keys.size() - 1 - halfmoveClock); i -= 2)
+        {
+            if (keys.get(i) == current) count++;
+        }
+        return count;
+    }
+
+    private static boolean insufficientMaterial(Position pos)
+    {
+        int pieces = Long.bitCount(pos.occupied);
+        if (pieces == 2) return true;
+        if (pieces != 3) return false;
+        long minors = 0;
+        for (int color = 0; color < 2; color++)
+        {
+            minors |= pos.pieces[Position.piece(color, Position.KNIGHT)] | pos.pieces[Position.piece(color, Position.BISHOP)];
+        }
+        return minors != 0;
+    }
+
+    private static List<Position> openings(String file) throws IOException
+    {
+        List<Position> positions = new ArrayList<>();
+        if (file != null)
+        {
+            for (String line : Files.readAllLines(Paths.get(file)))
+            {
+                String[] fields = line.trim().split("\\s+");
+                if (fields.length < 4 || line.startsWith("#")) continue;
+                positions.add(new Position(fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3]));
+            }
+            return positions;
+        }
+        for (String line : OPENINGS)
+        {
+            Position pos = new Position();
+            for (String san : line.split(" "))
+            {
+                pos.makeMove(Move.parseSan(pos, san));
+            }
+            positions.add(new Position(pos));
+        }
+        return positions;
+    }
+
+    void run(List<Position> openings, int games, int concurrency) throws InterruptedException
+    {
+        Semaphore running = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        ExecutorService executor = gameExecutor(concurrency);
+        try
+        {
+            for (int game = 0; game < games; game++)
+            {
+                int number = game + 1;
+                Position opening = openings.get(game / 2 % openings.size());
+                boolean firstIsWhite = game % 2 == 0;
+                executor.submit(() -> {
+                    try
+                    {
+                        running.acquire();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                    try
+                    {
+                        StringBuilder reason = new StringBuilder();
+                        double score = play(opening, firstIsWhite, reason);
+                        (score == 1 ? wins : score == 0 ? losses : draws).incrementAndGet();
+                        String result = score == 0.5 ? "1/2-1/2" : (score == 1) == firstIsWhite ? "1-0" : "0-1";
+                        System.out.printf("game %4d  first player %s  %-7s  %s%n", number, firstIsWhite ? "white" : "black",
+                            result, reason);
+                    }
+                    catch (RuntimeException e)
+                    {
+                        e.printStackTrace();
+                    }
+                    finally
+                    {
+                        running.release();
+                    }
+                });
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        report((System.nanoTime() - start) / 1e9);
+    }
+
+    // One virtual thread per game where the runtime has them. Looked up by reflection
+    // so the rest of the tree still compiles and runs on Java 17.
+    private static ExecutorService gameExecutor(int concurrency)
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newFixedThreadPool(concurrency);
+        }
+    }
+
+    private void report(double seconds)
+    {
+        long w = wins.get(), d = draws.get(), l = losses.get(), n = w + d + l;
+        if (n == 0) return;
+        double score = (w + d / 2.0) / n;
+        // Standard error of the mean score per game, turned into a 95% interval in Elo.
+        double variance = (w * Math.pow(1 - score, 2) + d * Math.pow(0.5 - score, 2) + l * Math.pow(score, 2)) / n;
+        double margin = 1.96 * Math.sqrt(variance / n);
+        double elo = elo(score);
+        double error = (elo(Math.min(score + margin, 0.999)) - elo(Math.max(score - margin, 0.001))) / 2;
+        System.out.printf("+%d =%d -%d  score %.1f%%  elo %+.1f +/- %.1f  (%d games in %.1f s, %.0f nps)%n",
+            w, d, l, score * 100, elo, error, n, seconds, nodes.get() / seconds);
+    }
+
+    private static double elo(double score)
+    {
+        double clamped = Math.min(Math.max(score, 0.001), 0.999);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        SearchLimits first = SearchLimits.nodes(20_000), second = null;
+        int games = 0, hashMb = 4, variety = 10;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        String openingFile = null;
+        for (int i = 0; i + 1 < args.length; i += 2)
+        {
+            String value = args[i + 1];
+            switch (args[i])
+            {
+                case "-games" -> games = Integer.parseInt(value);
+                case "-nodes" -> first = SearchLimits.nodes(Long.parseLong(value));
+                case "-time" -> first = SearchLimits.time(Long.parseLong(value));
+                case "-nodes2" -> second = SearchLimits.nodes(Long.parseLong(value));
+                case "-time2" -> second = SearchLimits.time(Long.parseLong(value));
+                case "-openings" -> openingFile = value;
+                case "-concurrency" -> concurrency = Math.max(1, Integer.parseInt(value));
+                case "-hash" -> hashMb = Math.max(1, Integer.parseInt(value));
+                case "-variety" -> variety = Integer.parseInt(value);
+                default ->
+                {
+                    System.out.println("usage: java Tournament [-games N] [-nodes N | -time ms] [-nodes2 N | -time2 ms]"
+                        + " [-openings file] [-concurrency N] [-hash MB] [-variety cp]");
+                    return;
+                }
+            }
+        }
+        List<Position> openings = openings(openingFile);
+        if (openings.isEmpty())
+        {
+            System.out.println("no opening positions");
+            return;
+        }
+        if (games <= 0) games = 2 * openings.size();
+        if (second == null) second = first;
+        new Tournament(first.withVariety(variety), second.withVariety(variety), hashMb).run(openings, games, concurrency);
+    }
+}
@@ -0,0 +1,126 @@
+// Fixed-size hash table of search results held in two parallel long arrays.
+// Entries live in buckets of two; a store replaces the slot holding the same
+// position, otherwise the shallower or older of the pair.
+//
+// Several search threads share one table without locking. Each slot keeps the
+// key XORed with its data word, so a slot torn by concurrent writers simply
+// fails to match on probe. This relies on 64-bit array stores being atomic,
+// which HotSpot guarantees on 64-bit platforms.
+//
+// Data word layout: move (16 bits) | score (32) | depth (8) | bound (2) | generation (6).
+final class TranspositionTable
+{
+    static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int generation = 1;
+
+
+    TranspositionTable(int megabytes)
+    {
+        long entries = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        data = new long[size];
+        mask = (size - 1) & ~1;
+    }
+
+    void newSearch()
+    {
+        generation = generation % 63 + 1;
+    }
+
+    void clear()
+    {
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(data, 0);
+    }
+
+    // Returns the data word stored for this key, or 0 when the position is not in the table.
+    long probe(long key)
+    {
+        int index = (int) key & mask;
+        for (int i = index; i < index + 2; i++)
+        {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) return entry;
+        }
+        return 0;
+    }
+
+    void store(long key, int depth, int bound, int score, int move)
+    {
+        int index = (int) key & mask;
+        int slot = index;
+        if ((keys[index] ^ data[index]) != key)
+        {
+            if ((keys[index + 1] ^ data[index + 1]) == key || priority(index + 1) < priority(index)) slot = index + 1;
+        }
+        long entry = (move & 0xFFFFL)
+            | ((score & 0xFFFFFFFFL) << 16)
+            | ((long) (depth & 0xFF) << 48)
+            | ((long) bound << 56)
+            | ((long) generation << 58);
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    // Entries from earlier searches are worth less than anything stored in this one.
+    private int priority(int slot)
+    {
+        long entry = data[slot];
+        if (entry == 0) return Integer.MIN_VALUE;
+        int age = (generation - generation(entry)) & 63;
+        return depth(entry) - age * 8;
+    }
+
+    static int move(long entry)
+    {
+        return (int) (entry & 0xFFFF);
+    }
+
+    static int score(long entry)
+    {
+        return (int) (entry >>> 16);
+    }
+
+    static int depth(long entry)
+    {
+        return (int) (entry >>> 48) & 0xFF;
+    }
+
+    static int bound(long entry)
+    {
+        return (int) (entry >>> 56) & 3;
+    }
+
+    private static int generation(long entry)
+    {
+        return (int) (entry >>> 58) & 63;
+    }
+
+    long memoryBytes()
+    {
+        return (long) keys.length * ENTRY_BYTES;
+    }
+
+    // Fraction of a sample of slots filled during the current search, in permille.
+    int usagePermille()
+    {
+        int sample = Math.min(1000, keys.length), used = 0;
+        for (int i = 0; i < sample; i++)
+        {
+            if (data[i] != 0 && generation(data[i]) == generation) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    String stats()
+    {
+        return String.format("tt %d MB, %d%% full", memoryBytes() >> 20, usagePermille() / 10);
+    }
+}
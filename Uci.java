@@ -0,0 +1,355 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// Runs the engine headless, speaking the Universal Chess Interface on standard
+// input and output so it can be driven by chess GUIs and match runners:
+//
+//   java Uci
+//
+// Commands are read on the main thread; a search runs on its own thread so that
+// "stop", "isready" and "quit" are answered while it thinks.
+final class Uci
+{
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+    private static final int MAX_PV = 32;
+    private static final int DEFAULT_BOOK_DEPTH = 16;
+
+    // With no moves-to-go from the GUI, plan as if this many moves remain.
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // Kept in hand on every move for GUI and process overhead.
+    private static final long MOVE_OVERHEAD_MS = 30;
+
+    private int hashMb = DEFAULT_HASH_MB;
+    private int threads = 1;
+    private TranspositionTable table = new TranspositionTable(hashMb);
+    private ParallelSearch engine = new ParallelSearch(table, threads);
+    private int bookDepth = DEFAULT_BOOK_DEPTH;
+    private String bookFile = "";
+    private PolyglotBook book;
+
+    private Position position = new Position();
+    private Thread searchThread;
+    private boolean infinite;
+    private boolean stopRequested;
+
+    public static void main(String[] args) throws IOException
+    {
+        new Uci().run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    private void run(BufferedReader in) throws IOException
+    {
+        for (String line = in.readLine(); line != null; line = in.readLine())
+        {
+            String[] words = line.trim().split("\\s+");
+            switch (words[0])
+            {
+                case "uci" ->
+                {
+                    send("id name Chess");
+                    send("id author sumaiyatosi");
+                    send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name BookFile type string default <empty>");
+                    send("option name BookDepth type spin default " + DEFAULT_BOOK_DEPTH + " min 0 max 200");
+                    send("uciok");
+                }
+                case "isready" -> send("readyok");
+                case "setoption" -> setOption(words);
+                case "ucinewgame" ->
+                {
+                    finishSearch();
+                    table.clear();
+                }
+                case "position" -> setPosition(words);
+                case "go" -> go(words);
+                case "stop" -> finishSearch();
+                case "quit" ->
+                {
+                    finishSearch();
+                    engine.shutdown();
+                    return;
+                }
+                default ->
+                {
+                    // Unknown commands are ignored, as the protocol asks.
+                }
+            }
+        }
+        finishSearch();
+        engine.shutdown();
+    }
+
+    private static void send(String line)
+    {
+        System.out.println(line);
+    }
+
+    // setoption name <id> value <x>; the value runs to the end of the line so file names may hold spaces.
+    private void setOption(String[] words)
+    {
+        String name = null, value = null;
+        for (int i = 1; i + 1 < words.length; i++)
+        {
+            if (words[i].equals("name")) name = words[i + 1];
+            if (words[i].equals("value"))
+            {
+                value = String.join(" ", Arrays.copyOfRange(words, i + 1, words.length));
+                break;
+            }
+        }
+        if (name == null || value == null) return;
+
+        finishSearch();
+        try
+        {
+            if (name.equalsIgnoreCase("Hash"))
+            {
+                hashMb = Math.max(1, Math.min(Integer.parseInt(value), MAX_HASH_MB));
+                table = new TranspositionTable(hashMb);
+            }
+            else if (name.equalsIgnoreCase("Threads"))
+            {
+                threads = Math.max(1, Math.min(Integer.parseInt(value), MAX_THREADS));
+            }
+            else if (name.equalsIgnoreCase("BookFile") || name.equalsIgnoreCase("BookDepth"))
+            {
+                if (name.equalsIgnoreCase("BookFile")) bookFile = value.equals("<empty>") ? "" : value;
+                else bookDepth = Math.max(0, Integer.parseInt(value));
+                openBook();
+                return;
+            }
+            else
+            {
+                return;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            send("info string bad value for " + name + ": " + value);
+            return;
+        }
+        engine.shutdown();
+        engine = new ParallelSearch(table, threads);
+    }
+
+    private void openBook()
+    {
+        book = null;
+        if (bookFile.isEmpty()) return;
+        try
+        {
+            book = new PolyglotBook(Paths.get(bookFile), bookDepth);
+        }
+        catch (IOException e)
+        {
+            send("info string book " + bookFile + " not loaded: " + e.getMessage());
+        }
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    private void setPosition(String[] words)
+    {
+        finishSearch();
+        int i = 1;
+        Position next;
+        try
+        {
+            if (words.length > 1 && words[1].equals("fen"))
+            {
+                StringBuilder fen = new StringBuilder();
+                for (i = 2; i < words.length && !words[i].equals("moves"); i++)
+                {
+                    fen.append(words[i]).append(' ');
+                }
+                next = new Position(fen.toString());
+            }
+            else
+            {
+                next = new Position();
+                i = 2;
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            send("info string " + e.getMessage());
+            return;
+        }
+
+        if (i < words.length && words[i].equals("moves"))
+        {
+            for (i++; i < words.length; i++)
+            {
+                int move = Move.parse(next, words[i]);
+                if (move == Move.NONE)
+                {
+                    send("info string illegal move " + words[i]);
+                    break;
+                }
+                next.makeMove(move);
+                // Keep the undo stack short over long games; nothing here takes a move back.
+                next = new Position(next);
+            }
+        }
+        position = next;
+    }
+
+    private void go(String[] words)
+    {
+        finishSearch();
+        int depth = SearchLimits.MAX_DEPTH;
+        long moveTime = 0, nodes = 0, increment = 0, remaining = 0;
+        int movesToGo = 0;
+        boolean white = position.sideToMove == Position.WHITE;
+        infinite = false;
+        try
+        {
+            for (int i = 1; i < words.length; i++)
+            {
+                String value = i + 1 < words.length ? words[i + 1] : "0";
+                switch (words[i])
+                {
+                    case "depth" -> depth = Integer.parseInt(value);
+                    case "movetime" -> moveTime = Long.parseLong(value);
+                    case "nodes" -> nodes = Long.parseLong(value);
+                    case "wtime" -> remaining = white ? Long.parseLong(value) : remaining;
+                    case "btime" -> remaining = white ? remaining : Long.parseLong(value);
+                    case "winc" -> increment = white ? Long.parseLong(value) : increment;
+                    case "binc" -> increment = white ? increment : Long.parseLong(value);
+                    case "movestogo" -> movesToGo = Integer.parseInt(value);
+                    case "infinite" -> infinite = true;
+                    default ->
+                    {
+                    }
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            send("info string bad go command");
+        }
+
+        if (moveTime == 0 && remaining > 0 && !infinite)
+        {
+            long share = remaining / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+            moveTime = Math.max(1, Math.min(share, remaining - MOVE_OVERHEAD_MS));
+        }
+        SearchLimits limits = new SearchLimits(depth, infinite ? 0 : moveTime, infinite ? 0 : nodes);
+
+        // Book moves are played at once and never start a search.
+        int bookMove = book == null || infinite ? Move.NONE : book.probe(position);
+        if (bookMove != Move.NONE)
+        {
+            send("info string book move");
+            send("bestmove " + Move.name(bookMove));
+            return;
+        }
+
+        Position root = new Position(position);
+        synchronized (this)
+        {
+            stopRequested = false;
+        }
+        engine.main().listener = this::report;
+        searchThread = new Thread(() -> search(root, limits), "uci-search");
+        searchThread.start();
+    }
+
+    private void search(Position root, SearchLimits limits)
+    {
+        int best = Move.NONE;
+        int[] line = new int[MAX_PV];
+        int length = 0;
+        try
+        {
+            best = engine.bestMove(root, limits);
+            length = best == Move.NONE ? 0 : engine.main().principalVariation(line);
+        }
+        catch (RuntimeException e)
+        {
+            // The GUI waits for a bestmove whatever happens, so answer with the null move.
+            send("info string search failed: " + e);
+            best = Move.NONE;
+            length = 0;
+        }
+
+        // In infinite mode the best move may only be sent once the GUI says stop.
+        synchronized (this)
+        {
+            while (infinite && !stopRequested)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    break;
+                }
+            }
+        }
+        String bestMove = best == Move.NONE ? "0000" : Move.name(best);
+        send(length > 1 && line[0] == best ? "bestmove " + bestMove + " ponder " + Move.name(line[1])
+            : "bestmove " + bestMove);
+    }
+
+    private void report(Search search)
+    {
+        synchronized (this)
+        {
+            // A stop that came in before the search cleared its flag must still be honoured.
+            if (stopRequested) engine.stop();
+        }
+        int[] line = new int[MAX_PV];
+        int length = search.principalVariation(line);
+        long millis = Math.max(1, search.elapsedMillis());
+        long nodes = engine.stats().nodes;
+
+        StringBuilder info = new StringBuilder("info depth ").append(search.completedDepth)
+            .append(" score ").append(score(search.bestScore))
+            .append(" nodes ").append(nodes)
+            .append(" nps ").append(nodes * 1000 / millis)
+            .append(" time ").append(millis)
+            .append(" hashfull ").append(table.usagePermille())
+            .append(" pv");
+        for (int i = 0; i < length; i++)
+        {
+            info.append(' ').append(Move.name(line[i]));
+        }
+        send(info.toString());
+    }
+
+    // Mate scores go out as moves to mate, negative when the engine is the one being mated.
+    private static String score(int score)
+    {
+        if (score >= Search.MATE_BOUND) return "mate " + (Search.MATE - score + 1) / 2;
+        if (score <= -Search.MATE_BOUND) return "mate " + -(Search.MATE + score + 1) / 2;
+        return "cp " + score;
+    }
+
+    // Stops a running search and waits for its best move to be sent.
+    private void finishSearch()
+    {
+        if (searchThread == null) return;
+        synchronized (this)
+        {
+            stopRequested = true;
+            notifyAll();
+        }
+        engine.stop();
+        try
+        {
+            searchThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+}
@@ -0,0 +1,42 @@
+// Random keys for hashing positions. The seed is fixed so keys are stable between runs.
+final class Zobrist
+{
+    static final long[][] PIECES = new long[12][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long SIDE_TO_MOVE;
+
+    private static long state = 0x9E3779B97F4A7C15L;
+
+    static
+    {
+        for (long[] squares : PIECES)
+        {
+            for (int sq = 0; sq < 64; sq++)
+            {
+                squares[sq] = next();
+            }
+        }
+        for (int rights = 0; rights < 16; rights++)
+        {
+            CASTLING[rights] = next();
+        }
+        for (int file = 0; file < 8; file++)
+        {
+            EN_PASSANT_FILE[file] = next();
+        }
+        SIDE_TO_MOVE = next();
+    }
+
+    private Zobrist()
+    {
+    }
+
+    private static long next()
+    {
+        state ^= state >>> 12;
+        state ^= state << 25;
+        state ^= state >>> 27;
+        return state * 0x2545F4914F6CDD1DL;
+    }
+}